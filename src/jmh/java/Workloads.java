@@ -0,0 +1,134 @@
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The hot paths measured by the JMH benchmarks, each wrapped up with its
+ * input as a supplier.
+ *
+ * JMH won't generate code for benchmarks in the default package, and a
+ * class in a named package can't refer to ours, so the benchmarks (in
+ * package benchmarks) look these factories up by name once, during
+ * setup; the measured call is then a plain interface call.
+ *
+ * Puzzles are read from src/test/testResources, relative to the
+ * directory the benchmarks are run from.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class Workloads {
+
+    private static TilePuzzleNode load(String puzzle) {
+        return new TilePuzzleNode(System.getProperty("user.dir")
+                + "/src/test/testResources/" + puzzle);
+    }
+
+    /**
+     * @return a legal move for the board.
+     */
+    private static int anyMove(TilePuzzleNode node) {
+        int move = 0;
+        while (node.slideBlank(move) == null) {
+            move++;
+        }
+        return move;
+    }
+
+    //----nodes----
+
+    public static Supplier<Object> generateChildren(String puzzle) {
+        TilePuzzleNode node = load(puzzle);
+        return node::generateChildren;
+    }
+
+    public static Supplier<Object> slideBlank(String puzzle) {
+        TilePuzzleNode node = load(puzzle);
+        int move = anyMove(node);
+        return () -> node.slideBlank(move);
+    }
+
+    public static IntSupplier hashCode(String puzzle) {
+        TilePuzzleNode node = load(puzzle);
+        return node::hashCode;
+    }
+
+    /**
+     * Compares against an equal board held in a different object.
+     */
+    public static IntSupplier equals(String puzzle) {
+        TilePuzzleNode node = load(puzzle);
+        TilePuzzleNode copy = load(puzzle);
+        return () -> node.equals(copy) ? 1 : 0;
+    }
+
+    /**
+     * Includes copying the board, since the count sorts it in place.
+     */
+    public static IntSupplier inversionCount(String puzzle) {
+        int[] tiles = InversionCount.flatten(load(puzzle).getState());
+        return () -> InversionCount.inversionCount(tiles.clone());
+    }
+
+    public static IntSupplier isSolvable(String puzzle) {
+        TilePuzzleNode node = load(puzzle);
+        int[][] board = node.getState();
+        int n = node.getDimensions();
+        return () -> TilePuzzleNode.isSolvable(board, n) ? 1 : 0;
+    }
+
+    //----heuristics----
+
+    public static IntSupplier manhattan(String puzzle) {
+        TilePuzzleNode node = load(puzzle);
+        Heuristic heuristic = new ManhattanDistance();
+        return () -> heuristic.estimate(node);
+    }
+
+    public static IntSupplier linearConflict(String puzzle) {
+        TilePuzzleNode node = load(puzzle);
+        Heuristic heuristic = new ManhattanWithLinearConflict();
+        return () -> heuristic.estimate(node);
+    }
+
+    /**
+     * 4x4 boards only.
+     */
+    public static IntSupplier walkingDistance(String puzzle) {
+        TilePuzzleNode node = load(puzzle);
+        Heuristic heuristic = new WalkingDistance();
+        return () -> heuristic.estimate(node);
+    }
+
+    //----solves----
+
+    public static Supplier<Object> aStar(String puzzle) {
+        TilePuzzleNode start = load(puzzle);
+        AStar aStar = new AStar(new ManhattanWithLinearConflict());
+        return () -> aStar.search(start);
+    }
+
+    public static Supplier<Object> idaStar(String puzzle) {
+        TilePuzzleNode start = load(puzzle);
+        IterativeDeepeningAStar ida = new IterativeDeepeningAStar(new ManhattanWithLinearConflict());
+        return () -> ida.IterativeDeepeningSearch(start);
+    }
+
+    /**
+     * 4x4 boards only.
+     */
+    public static Supplier<Object> idaStarWalkingDistance(String puzzle) {
+        TilePuzzleNode start = load(puzzle);
+        IterativeDeepeningAStar ida = new IterativeDeepeningAStar(new WalkingDistance());
+        return () -> ida.IterativeDeepeningSearch(start);
+    }
+
+    /**
+     * The perimeter table is built here, so it isn't measured.
+     */
+    public static Supplier<Object> idaStarPerimeter(String puzzle) {
+        TilePuzzleNode start = load(puzzle);
+        Perimeter.forDimensions(start.getDimensions());
+        IterativeDeepeningAStar ida = IterativeDeepeningAStar.withPerimeter(new ManhattanWithLinearConflict());
+        return () -> ida.IterativeDeepeningSearch(start);
+    }
+}
@@ -0,0 +1,53 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Full (non-incremental) heuristic estimates.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeuristicBenchmark {
+
+    @Param({"puzzle2.txt", "puzzle1.txt"})
+    public String puzzle;
+
+    private IntSupplier manhattan;
+    private IntSupplier linearConflict;
+
+    @Setup
+    public void setup() {
+        manhattan = Workload.primitive("manhattan", puzzle);
+        linearConflict = Workload.primitive("linearConflict", puzzle);
+    }
+
+    @Benchmark
+    public int manhattanDistance() {
+        return manhattan.getAsInt();
+    }
+
+    @Benchmark
+    public int manhattanWithLinearConflict() {
+        return linearConflict.getAsInt();
+    }
+}
@@ -0,0 +1,82 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Node expansion and the solvability check, on a 3x3 and a 4x4 board.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeBenchmark {
+
+    @Param({"puzzle2.txt", "puzzle1.txt"})
+    public String puzzle;
+
+    private Supplier<Object> generateChildren;
+    private Supplier<Object> slideBlank;
+    private IntSupplier hashCode;
+    private IntSupplier equals;
+    private IntSupplier inversionCount;
+    private IntSupplier isSolvable;
+
+    @Setup
+    public void setup() {
+        generateChildren = Workload.object("generateChildren", puzzle);
+        slideBlank = Workload.object("slideBlank", puzzle);
+        hashCode = Workload.primitive("hashCode", puzzle);
+        equals = Workload.primitive("equals", puzzle);
+        inversionCount = Workload.primitive("inversionCount", puzzle);
+        isSolvable = Workload.primitive("isSolvable", puzzle);
+    }
+
+    @Benchmark
+    public Object generateChildren() {
+        return generateChildren.get();
+    }
+
+    @Benchmark
+    public Object slideBlank() {
+        return slideBlank.get();
+    }
+
+    @Benchmark
+    public int hashCodeOfNode() {
+        return hashCode.getAsInt();
+    }
+
+    @Benchmark
+    public int equalsOfNode() {
+        return equals.getAsInt();
+    }
+
+    @Benchmark
+    public int inversionCount() {
+        return inversionCount.getAsInt();
+    }
+
+    @Benchmark
+    public int isSolvable() {
+        return isSolvable.getAsInt();
+    }
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * End-to-end solves of the test puzzles with Manhattan distance +
+ * linear conflict. The 4x4 puzzles are the ones A* can hold in memory.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Param({"puzzle2.txt", "puzzle3.txt", "puzzle4.txt", "puzzle7.txt",
+            "puzzle5.txt", "puzzle10.txt", "puzzle11.txt"})
+    public String puzzle;
+
+    private Supplier<Object> aStar;
+    private Supplier<Object> idaStar;
+    private Supplier<Object> idaStarPerimeter;
+
+    @Setup
+    public void setup() {
+        aStar = Workload.object("aStar", puzzle);
+        idaStar = Workload.object("idaStar", puzzle);
+        idaStarPerimeter = Workload.object("idaStarPerimeter", puzzle);
+    }
+
+    @Benchmark
+    public Object aStarSearch() {
+        return aStar.get();
+    }
+
+    @Benchmark
+    public Object iterativeDeepeningSearch() {
+        return idaStar.get();
+    }
+
+    @Benchmark
+    public Object iterativeDeepeningPerimeterSearch() {
+        return idaStarPerimeter.get();
+    }
+}
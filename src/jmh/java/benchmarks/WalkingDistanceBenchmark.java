@@ -0,0 +1,62 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Walking distance, which only handles 4x4 boards: a full estimate, and
+ * IDA* solves with it. The puzzles are the 4x4 ones of HeuristicBenchmark
+ * and SolveBenchmark, so the results compare directly with linear
+ * conflict's.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalkingDistanceBenchmark {
+
+    @Param({"puzzle1.txt", "puzzle3.txt", "puzzle7.txt", "puzzle5.txt",
+            "puzzle10.txt", "puzzle11.txt"})
+    public String puzzle;
+
+    private IntSupplier walkingDistance;
+    private Supplier<Object> idaStar;
+
+    @Setup
+    public void setup() {
+        walkingDistance = Workload.primitive("walkingDistance", puzzle);
+        idaStar = Workload.object("idaStarWalkingDistance", puzzle);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public int walkingDistance() {
+        return walkingDistance.getAsInt();
+    }
+
+    @Benchmark
+    public Object iterativeDeepeningSearch() {
+        return idaStar.get();
+    }
+}
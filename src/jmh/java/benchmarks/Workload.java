@@ -0,0 +1,34 @@
+package benchmarks;
+
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Fetches a workload from Workloads, which lives in the default package
+ * with the rest of the solver and so can only be reached reflectively.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+final class Workload {
+
+    private Workload() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static Supplier<Object> object(String name, String puzzle) {
+        return (Supplier<Object>) create(name, puzzle);
+    }
+
+    static IntSupplier primitive(String name, String puzzle) {
+        return (IntSupplier) create(name, puzzle);
+    }
+
+    private static Object create(String name, String puzzle) {
+        try {
+            return Class.forName("Workloads").getMethod(name, String.class).invoke(null, puzzle);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No workload " + name, e);
+        }
+    }
+}
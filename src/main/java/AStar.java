@@ -1,79 +1,351 @@
 import java.util.*;
 
 /**
- * Conventional A* search.
- * 
+ * Conventional A* search, with two bounded-suboptimal modes for when a
+ * path a few percent longer than optimal is good enough:
+ *
+ * - weighted A* orders the open list by g + w * h, and finds a path at
+ *   most w times the optimal length;
+ * - A*_epsilon (see focal) expands, out of the open nodes with f within
+ *   a factor (1 + epsilon) of the lowest, the one closest to the goal.
+ *
+ * In every mode the search counts open nodes by their unweighted
+ * f = g + h (see FrontierBound), so searchWithBound can return each path
+ * with a proven lower bound on the optimal cost.
+ *
+ * Nodes live in a NodeArena (parallel primitive arrays) and are found
+ * again through an open-addressing hash of their packed state, so the
+ * search itself holds no per-node objects.
+ *
  * @author Joseph Adamson
  * @version November
  */
-public class AStar {
+public class AStar implements SearchAlgorithm {
 
     /**
      * Heuristic function to inform the search.
      */
     private final Heuristic heuristic;
 
+    /**
+     * Open list strategy used for the frontier.
+     */
+    private final OpenList.Type openListType;
+
+    /**
+     * Open list priority is g * gScale + h * hScale: weights are
+     * rounded down to sixteenths so priorities stay small integers. Down,
+     * so the weight used is never above the one promised.
+     */
+    static final int WEIGHT_SCALE = 16;
+
+    private final double weight;
+    private final int gScale;
+    private final int hScale;
+
+    /**
+     * Focal list factor of A*_epsilon, or 0 for best-first order.
+     */
+    private final double epsilon;
+
+    /**
+     * Stats of the last search to finish, on any thread.
+     */
+    private volatile SearchStats lastStats;
+
     /**
      * @param heuristic: search heuristic of choice.
      */
     public AStar(Heuristic heuristic) {
+        this(heuristic, OpenList.Type.BUCKETS);
+    }
+
+    /**
+     * @param heuristic: search heuristic of choice.
+     * @param openListType: open list strategy of choice.
+     */
+    public AStar(Heuristic heuristic, OpenList.Type openListType) {
+        this(heuristic, openListType, 1.0, 0);
+    }
+
+    /**
+     * Weighted A*: paths are at most weight times the optimal length.
+     *
+     * @param heuristic: search heuristic of choice.
+     * @param weight: weight on h, at least 1 (1 is plain A*).
+     */
+    public AStar(Heuristic heuristic, double weight) {
+        this(heuristic, OpenList.Type.BUCKETS, weight, 0);
+    }
+
+    /**
+     * Weighted A*: paths are at most weight times the optimal length.
+     *
+     * @param heuristic: search heuristic of choice.
+     * @param openListType: open list strategy of choice.
+     * @param weight: weight on h, at least 1 (1 is plain A*).
+     */
+    public AStar(Heuristic heuristic, OpenList.Type openListType, double weight) {
+        this(heuristic, openListType, weight, 0);
+    }
+
+    private AStar(Heuristic heuristic, OpenList.Type openListType, double weight,
+                  double epsilon) {
+        if (!(weight >= 1)) {
+            throw new IllegalArgumentException("Weight must be at least 1");
+        }
+        if (!(epsilon >= 0)) {
+            throw new IllegalArgumentException("Epsilon must be non-negative");
+        }
         this.heuristic = heuristic;
+        this.openListType = openListType;
+        this.weight = weight;
+        this.epsilon = epsilon;
+        this.gScale = weight == 1 ? 1 : WEIGHT_SCALE;
+        this.hScale = weight == 1 ? 1 : hScale(weight);
+    }
+
+    /**
+     * A*_epsilon: paths are at most (1 + epsilon) times the optimal
+     * length.
+     *
+     * @param heuristic: search heuristic of choice.
+     * @param epsilon: allowed excess over the lowest open f (e.g. 0.1).
+     * @return the engine.
+     */
+    public static AStar focal(Heuristic heuristic, double epsilon) {
+        return new AStar(heuristic, OpenList.Type.BUCKETS, 1.0, epsilon);
+    }
+
+    @Override
+    public ArrayList<TilePuzzleNode> solve(TilePuzzleNode start) {
+        return search(start);
     }
 
     /**
      * A* implementation.
-     * 
+     *
      * @param start: the initial node (puzzle to be solved)
-     * @return the path from the start state to the goal state.
+     * @return the path from the goal state back to the start state.
      */
     public ArrayList<TilePuzzleNode> search(TilePuzzleNode start) {
+        return search(start, SearchListener.NONE);
+    }
 
-        // Good for re-tracing path from goal to start in the search 
-        // space {child : parent}, also used as a log of visited nodes.
-        HashMap<TilePuzzleNode, TilePuzzleNode> predecessor = new HashMap<>();
-        
-        // g (the depth of the node in the search space).
-        HashMap<TilePuzzleNode, Integer> g = new HashMap<>();
-        
-        // f(node) = g(node) + h(node).
-        HashMap<TilePuzzleNode, Integer> fScore = new HashMap<>();
-        
-        // Used to enforce order on the basis of f(node).
-        Comparator<TilePuzzleNode> comp = new Comparator<TilePuzzleNode>() {
-            @Override
-            public int compare(TilePuzzleNode a, TilePuzzleNode b) {
-                return fScore.get(a) - fScore.get(b);
-            }
-        };
-        PriorityQueue<TilePuzzleNode> toVisit = new PriorityQueue<>(10000, comp);
+    /**
+     * A* implementation.
+     *
+     * @param start: the initial node (puzzle to be solved)
+     * @param listener: told of progress every PROGRESS_INTERVAL expansions.
+     * @return the path from the goal state back to the start state.
+     */
+    public ArrayList<TilePuzzleNode> search(TilePuzzleNode start, SearchListener listener) {
+        return searchWithBound(start, SearchLimit.NONE, listener).requirePath();
+    }
+
+    @Override
+    public SearchResult solve(TilePuzzleNode start, SearchLimit limit) {
+        return searchWithBound(start, limit, SearchListener.NONE);
+    }
+
+    /**
+     * @param start: the initial node (puzzle to be solved)
+     * @return the path found, with a lower bound on the optimal cost.
+     */
+    public SearchResult searchWithBound(TilePuzzleNode start) {
+        return searchWithBound(start, SearchLimit.NONE, SearchListener.NONE);
+    }
+
+    /**
+     * A* implementation.
+     *
+     * @param start: the initial node (puzzle to be solved)
+     * @param limit: limits on the search; checked every CHECK_INTERVAL expansions.
+     * @param listener: told of progress every PROGRESS_INTERVAL expansions.
+     * @return the path found, with a lower bound on the optimal cost; if
+     * cut off, no path and the lowest f still open.
+     */
+    public SearchResult searchWithBound(TilePuzzleNode start, SearchLimit limit,
+                                        SearchListener listener) {
+        long startTime = System.nanoTime();
+        SearchLimit.Monitor monitor = limit.start();
+        SearchStats stats = new SearchStats(getName());
+        int n = start.getDimensions();
+        if (n > TilePuzzleNode.PACKED_DIMENSIONS) {
+            // The node arena and visited table hold one long per board.
+            throw new IllegalArgumentException("A* only handles boards up to "
+                    + TilePuzzleNode.PACKED_DIMENSIONS + "x" + TilePuzzleNode.PACKED_DIMENSIONS);
+        }
+        long goal = TilePuzzleNode.goalState(n);
+
+        NodeArena nodes = new NodeArena(n, 1 << 12);
+
+        // {packed state : node index}, also used as a log of visited nodes.
+        LongIntHashMap visited = new LongIntHashMap(1 << 12);
+
+        // Open nodes counted by f(node) = g(node) + h(node).
+        FrontierBound open = new FrontierBound();
+
+        // Node indexes ordered by g(node) + w * h(node), or the focal list.
+        OpenList toVisit = epsilon > 0 ? new FocalOpenList(nodes, open, epsilon)
+                : openListType.create();
+
+        // Expanded nodes; stale open list entries for these are skipped.
+        BitSet closed = new BitSet();
+
+        int root = nodes.add(start.getPackedState(), start.getBlank(), 0,
+                heuristic.estimate(start), NodeArena.NO_PARENT, NodeArena.NO_MOVE);
+        visited.put(start.getPackedState(), root);
+        open.add(nodes.f(root));
+        toVisit.push(root, priority(0, nodes.h(root)), 0);
+
+        long generated = 1;
+        long expanded = 0;
+        long duplicates = 0;
+        int closedSize = 0;
+        int peakClosed = 0;
+        int peakOpen = 1;
+        int maxDepth = 0;
+        ArrayList<TilePuzzleNode> path = null;
+        int lowerBound = 0;
+        SearchResult.Status stopped = null;
 
-        g.put(start, 0);
-        fScore.put(start, heuristic.estimate(start));
-        toVisit.add(start);
         while (!(toVisit.isEmpty())) {
-            TilePuzzleNode current = toVisit.poll();
-            
-            if (fScore.get(current) - g.get(current) == 0) {
-                ArrayList<TilePuzzleNode> solution = new ArrayList<>();
-                
-                TilePuzzleNode backTrace = current;
-                while(backTrace != null) {
-                    solution.add(backTrace);
-                    backTrace = predecessor.get(backTrace);
+            int current = toVisit.pop();
+
+            if (closed.get(current)) {
+                continue;
+            }
+
+            open.remove(nodes.f(current));
+
+            if (nodes.state(current) == goal) {
+                path = nodes.path(current);
+                lowerBound = Math.min(nodes.g(current), open.min());
+                break;
+            }
+            closed.set(current);
+            peakClosed = Math.max(peakClosed, ++closedSize);
+            expanded++;
+
+            TilePuzzleNode node = nodes.node(current);
+            int h = nodes.h(current);
+            int childG = nodes.g(current) + 1;
+            int lastMove = nodes.move(current);
+            maxDepth = Math.max(maxDepth, childG);
+
+            for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+
+                // Undoing the last move leads straight back to the parent.
+                if (lastMove != NodeArena.NO_MOVE && move == (lastMove ^ 1)) {
+                    continue;
+                }
+                TilePuzzleNode child = node.slideBlank(move);
+
+                if (child == null) {
+                    continue;
                 }
-                return solution;
+                int existing = visited.get(child.getPackedState());
+
+                if (existing == LongIntHashMap.NOT_FOUND) {
+                    int index = nodes.add(child.getPackedState(), child.getBlank(), childG,
+                            heuristic.estimateAfterMove(h, child, move), current, move);
+                    visited.put(child.getPackedState(), index);
+                    open.add(nodes.f(index));
+                    toVisit.push(index, priority(childG, nodes.h(index)), childG);
+                    generated++;
+                } else if (childG < nodes.g(existing)) {
+
+                    // Found a cheaper path; (re)open the node.
+                    if (closed.get(existing)) {
+                        closed.clear(existing);
+                        closedSize--;
+                    } else {
+                        open.remove(nodes.f(existing));
+                    }
+                    nodes.relink(existing, childG, current, move);
+                    open.add(nodes.f(existing));
+                    toVisit.push(existing, priority(childG, nodes.h(existing)), childG);
+                } else {
+                    duplicates++;
+                }
+            }
+            peakOpen = Math.max(peakOpen, toVisit.size());
+
+            if (expanded % SearchStats.PROGRESS_INTERVAL == 0) {
+                publish(stats, startTime, generated, expanded, duplicates, peakOpen, peakClosed,
+                        maxDepth, nodes, visited);
+                listener.progress(stats);
             }
-            
-            ArrayList<TilePuzzleNode> children = current.generateChildren();
-            for (TilePuzzleNode child : children) {
-                if (!(predecessor.containsKey(child))) {
-                    predecessor.put(child, current);
-                    g.put(child, g.get(current) + 1);
-                    fScore.put(child, g.get(child) + heuristic.estimate(child));
-                    toVisit.add(child);
+            if (expanded % SearchLimit.CHECK_INTERVAL == 0) {
+                stopped = monitor.check(SearchLimit.CHECK_INTERVAL,
+                        nodes.memoryBytes() + visited.memoryBytes());
+                if (stopped != null) {
+                    lowerBound = open.min();
+                    break;
                 }
             }
         }
-        throw new IllegalStateException("Goal node not reachable");
+        publish(stats, startTime, generated, expanded, duplicates, peakOpen, peakClosed,
+                maxDepth, nodes, visited);
+        stats.solutionLength = path == null ? -1 : path.size() - 1;
+        lastStats = stats;
+        listener.searchFinished(stats);
+
+        if (stopped != null) {
+            return new SearchResult(stopped, null, lowerBound, stats);
+        }
+        if (path == null) {
+            throw new IllegalStateException("Goal node not reachable");
+        }
+        return new SearchResult(path, lowerBound, stats);
+    }
+
+    /**
+     * @return open list priority of a node.
+     */
+    private int priority(int g, int h) {
+        return g * gScale + h * hScale;
+    }
+
+    /**
+     * @param weight: weight on h, at least 1.
+     * @return the weight in WEIGHT_SCALE units, rounded down so paths
+     * stay within the weight asked for.
+     */
+    static int hScale(double weight) {
+        return (int) Math.floor(weight * WEIGHT_SCALE);
+    }
+
+    /**
+     * @return name of the engine and its mode, for reports.
+     */
+    public String getName() {
+        if (epsilon > 0) {
+            return String.format("A*_eps (eps=%.2f)", epsilon);
+        }
+        return weight == 1 ? "A*" : String.format("weighted A* (w=%.2f)", weight);
+    }
+
+    /**
+     * @return stats of the last search to finish (on any thread), or
+     * null if there hasn't been one.
+     */
+    public SearchStats getLastStats() {
+        return lastStats;
+    }
+
+    private static void publish(SearchStats stats, long startTime, long generated, long expanded,
+                                long duplicates, int peakOpen, int peakClosed, int maxDepth,
+                                NodeArena nodes, LongIntHashMap visited) {
+        stats.generated = generated;
+        stats.expanded = expanded;
+        stats.duplicates = duplicates;
+        stats.peakOpen = peakOpen;
+        stats.peakClosed = peakClosed;
+        stats.maxDepth = maxDepth;
+        stats.memoryBytes = nodes.memoryBytes() + visited.memoryBytes();
+        stats.storedNodes = nodes.size();
+        stats.elapsedNanos = System.nanoTime() - startTime;
     }
 }
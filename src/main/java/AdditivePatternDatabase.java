@@ -0,0 +1,271 @@
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Additive disjoint pattern database heuristic. The tiles are split into
+ * disjoint patterns, each with its own PatternDatabase; since a move only
+ * ever moves a tile of one pattern, the table values can be summed and
+ * the estimate stays admissible.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class AdditivePatternDatabase implements Heuristic {
+
+    /**
+     * The classic 6-6-3 partition of the 15-puzzle:
+     * <pre>
+     *      1  a  a  a        a = {2, 3, 4}
+     *      1  1  b  b        1 = {1, 5, 6, 9, 10, 13}
+     *      1  1  b  b        b = {7, 8, 11, 12, 14, 15}
+     *      1  b  b  0
+     * </pre>
+     */
+    public static final int[][] FIFTEEN_PUZZLE_663 = {
+            {1, 5, 6, 9, 10, 13},
+            {7, 8, 11, 12, 14, 15},
+            {2, 3, 4}
+    };
+
+    /**
+     * A 6-6-6-6 partition of the 24-puzzle. Reflected across the main
+     * diagonal it becomes a different partition (a into 3x2 columns and
+     * so on), so looking the databases up on the reflected board as well
+     * gives a second estimate:
+     * <pre>
+     *      a  a  a  b  b        a = {1, 2, 3, 6, 7, 8}
+     *      a  a  a  b  b        b = {4, 5, 9, 10, 14, 15}
+     *      c  c  d  b  b        c = {11, 12, 16, 17, 21, 22}
+     *      c  c  d  d  d        d = {13, 18, 19, 20, 23, 24}
+     *      c  c  d  d  0
+     * </pre>
+     */
+    public static final int[][] TWENTY_FOUR_PUZZLE_6666 = {
+            {1, 2, 3, 6, 7, 8},
+            {4, 5, 9, 10, 14, 15},
+            {11, 12, 16, 17, 21, 22},
+            {13, 18, 19, 20, 23, 24}
+    };
+
+    private final int dimensions;
+
+    private final PatternDatabase[] databases;
+
+    /**
+     * patternOf[tile] is the index of the database the tile belongs to,
+     * or -1 if it is in none.
+     */
+    private final int[] patternOf;
+
+    /**
+     * Ranking terms of each tile within its pattern, so every pattern can
+     * be ranked in a single scan of the board: bitOf[tile] is 1 << (the
+     * tile's position in its pattern), below[tile] the bits of the tiles
+     * before it and multiplierOf[tile] its ranking multiplier.
+     */
+    private final int[] bitOf;
+    private final int[] below;
+    private final int[] multiplierOf;
+
+    /**
+     * mirrored[tile] is the tile whose home is the reflection of the
+     * tile's own across the main diagonal.
+     */
+    private final int[] mirrored;
+
+    /**
+     * Per-thread working space for sum(): each pattern's rank so far,
+     * then the bits of its tiles seen so far. Searches call sum() once
+     * or twice per node, from every worker, so it allocates nothing.
+     */
+    private final ThreadLocal<int[]> scratch;
+
+    /**
+     * Builds the 6-6-3 databases for 4x4 boards, using all cores.
+     */
+    public AdditivePatternDatabase() {
+        this(4, FIFTEEN_PUZZLE_663);
+    }
+
+    /**
+     * @param dimensions: the dimensions of the board.
+     * @param partition: disjoint groups of tiles, one database per group;
+     *                 each is built using all cores.
+     */
+    public AdditivePatternDatabase(int dimensions, int[][] partition) {
+        this(dimensions, buildAll(dimensions, partition));
+    }
+
+    /**
+     * Maps the databases from files in a directory, building (and saving)
+     * any that are missing or stale. See PatternDatabaseFile.
+     *
+     * @param directory: where the database files are kept.
+     * @param dimensions: the dimensions of the board.
+     * @param partition: disjoint groups of tiles, one database per group.
+     */
+    public AdditivePatternDatabase(Path directory, int dimensions, int[][] partition) {
+        this(dimensions, openAll(directory, dimensions, partition));
+    }
+
+    /**
+     * @param dimensions: the dimensions of the board.
+     * @param databases: databases over disjoint patterns.
+     */
+    public AdditivePatternDatabase(int dimensions, PatternDatabase[] databases) {
+        this.dimensions = dimensions;
+        this.databases = databases.clone();
+        int cells = dimensions * dimensions;
+        this.patternOf = new int[cells];
+        this.bitOf = new int[cells];
+        this.below = new int[cells];
+        this.multiplierOf = new int[cells];
+        this.mirrored = new int[cells];
+        Arrays.fill(patternOf, -1);
+        int scratchLength = 2 * databases.length;
+        this.scratch = ThreadLocal.withInitial(() -> new int[scratchLength]);
+
+        for (int i = 0; i < databases.length; i++) {
+            if (databases[i].getDimensions() != dimensions) {
+                throw new IllegalArgumentException("Pattern database is for a different board size");
+            }
+            int[] tiles = databases[i].getTiles();
+
+            for (int position = 0; position < tiles.length; position++) {
+                int tile = tiles[position];
+                if (patternOf[tile] != -1) {
+                    throw new IllegalArgumentException("Tile " + tile + " is in more than one pattern");
+                }
+                patternOf[tile] = i;
+                bitOf[tile] = 1 << position;
+                below[tile] = (1 << position) - 1;
+                multiplierOf[tile] = databases[i].multiplier(position);
+            }
+        }
+        for (int tile = 1; tile < cells; tile++) {
+            int home = tile - 1;
+            mirrored[tile] = (home % dimensions) * dimensions + home / dimensions + 1;
+        }
+    }
+
+    /**
+     * Sum of the pattern database values.
+     *
+     * @param node: the current search state
+     * @return the heuristic (priority) value of the node.
+     */
+    @Override
+    public int estimate(TilePuzzleNode node) {
+        if (node.getDimensions() != dimensions) {
+            throw new IllegalArgumentException("Pattern databases were built for "
+                    + dimensions + "x" + dimensions + " boards");
+        }
+        return sum(node, false);
+    }
+
+    /**
+     * Sum of the pattern database values for the board reflected across
+     * its main diagonal, with every tile relabelled as the tile whose home
+     * is the reflection of its own (see SolutionCache.transpose). The
+     * reflection needs as many moves as the board, so this is just as
+     * admissible as estimate(); unless the partition is its own reflection
+     * it is often larger.
+     *
+     * @param node: the current search state
+     * @return the heuristic (priority) value of the node's reflection.
+     */
+    public int estimateReflected(TilePuzzleNode node) {
+        if (node.getDimensions() != dimensions) {
+            throw new IllegalArgumentException("Pattern databases were built for "
+                    + dimensions + "x" + dimensions + " boards");
+        }
+        return sum(node, true);
+    }
+
+    /**
+     * Ranks every pattern in one scan of the board and sums the table
+     * values. The reflection is never built: its cells in ascending order
+     * are the board's cells column by column, relabelled.
+     *
+     * @param node: a board of the right size.
+     * @param reflected: true to look up the board's reflection.
+     * @return sum of the pattern database values.
+     */
+    private int sum(TilePuzzleNode node, boolean reflected) {
+        long low = node.getPackedState();
+        long high = node.getPackedHigh();
+        int patterns = databases.length;
+        int[] ranks = scratch.get();
+        Arrays.fill(ranks, 0);
+        int cell = 0;
+
+        for (int major = 0; major < dimensions; major++) {
+            for (int minor = 0; minor < dimensions; minor++, cell++) {
+                int tile = reflected
+                        ? mirrored[TilePuzzleNode.tileAt(low, high, dimensions, minor * dimensions + major)]
+                        : TilePuzzleNode.tileAt(low, high, dimensions, cell);
+                int pattern = patternOf[tile];
+
+                if (pattern >= 0) {
+                    int bits = ranks[patterns + pattern];
+                    ranks[pattern] += (cell - Integer.bitCount(bits & below[tile])) * multiplierOf[tile];
+                    ranks[patterns + pattern] = bits | bitOf[tile];
+                }
+            }
+        }
+        int h = 0;
+        for (int i = 0; i < patterns; i++) {
+            h += databases[i].get(ranks[i]);
+        }
+        return h;
+    }
+
+    /**
+     * Only the database holding the moved tile can change, so only
+     * that one is looked up, before and after the move.
+     */
+    @Override
+    public int estimateAfterMove(int parentH, TilePuzzleNode node, int move) {
+        int blank = node.getBlank();
+        int from = TilePuzzleNode.targetCell(blank, move ^ 1, dimensions);
+        int pattern = patternOf[node.getTile(from)];
+
+        if (pattern < 0) {
+            return parentH;
+        }
+        long low = node.getPackedState();
+        long high = node.getPackedHigh();
+        int after = databases[pattern].lookup(low, high);
+        int before = databases[pattern].lookup(
+                TilePuzzleNode.slideLow(low, high, dimensions, blank, from),
+                TilePuzzleNode.slideHigh(low, high, dimensions, blank, from));
+
+        return parentH - before + after;
+    }
+
+    /**
+     * @return the pattern databases summed by this heuristic.
+     */
+    public PatternDatabase[] getDatabases() {
+        return databases.clone();
+    }
+
+    private static PatternDatabase[] buildAll(int dimensions, int[][] partition) {
+        PatternDatabase[] databases = new PatternDatabase[partition.length];
+
+        for (int i = 0; i < partition.length; i++) {
+            databases[i] = PatternDatabase.buildParallel(dimensions, partition[i]);
+        }
+        return databases;
+    }
+
+    private static PatternDatabase[] openAll(Path directory, int dimensions, int[][] partition) {
+        PatternDatabase[] databases = new PatternDatabase[partition.length];
+
+        for (int i = 0; i < partition.length; i++) {
+            Path file = directory.resolve(PatternDatabaseFile.fileName(dimensions, partition[i]));
+            databases[i] = PatternDatabaseFile.readOrBuild(file, dimensions, partition[i]);
+        }
+        return databases;
+    }
+}
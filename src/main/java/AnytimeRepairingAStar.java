@@ -0,0 +1,309 @@
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+
+/**
+ * Anytime repairing A* (ARA*): a weighted A* search that is run again
+ * with a smaller weight each time it finds a path, until the weight
+ * reaches 1 (and the path is proven optimal) or a SearchLimit (usually
+ * time) is reached.
+ *
+ * Each search after the first picks up where the last one left off. Nodes
+ * are never expanded twice within one search; a node whose g improves
+ * after it has been expanded is set aside (as inconsistent) and only
+ * reopened by the next search, when the open list is reordered for the
+ * new weight.
+ *
+ * Every improved path is passed to SearchListener.solutionImproved with
+ * a lower bound on the optimal cost: the better of cost / weight and the
+ * lowest f = g + h of the open and inconsistent nodes.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class AnytimeRepairingAStar implements SearchAlgorithm {
+
+    /**
+     * Open list priority is g * WEIGHT_SCALE + h * AStar.hScale(w), the
+     * weight rounded down, so a pass never uses more than its weight.
+     */
+    private static final int WEIGHT_SCALE = AStar.WEIGHT_SCALE;
+
+    private final Heuristic heuristic;
+
+    private final double initialWeight;
+
+    private final double weightStep;
+
+    /**
+     * Stats of the last search to finish, on any thread.
+     */
+    private volatile SearchStats lastStats;
+
+    /**
+     * Starts at weight 2 and lowers it by 0.25 per search.
+     *
+     * @param heuristic: search heuristic of choice.
+     */
+    public AnytimeRepairingAStar(Heuristic heuristic) {
+        this(heuristic, 2.0, 0.25);
+    }
+
+    /**
+     * @param heuristic: search heuristic of choice.
+     * @param initialWeight: weight on h of the first search, at least 1.
+     * @param weightStep: amount the weight is lowered by after each search.
+     */
+    public AnytimeRepairingAStar(Heuristic heuristic, double initialWeight, double weightStep) {
+        if (!(initialWeight >= 1) || !(weightStep > 0)) {
+            throw new IllegalArgumentException("Weight must be at least 1 and step positive");
+        }
+        this.heuristic = heuristic;
+        this.initialWeight = initialWeight;
+        this.weightStep = weightStep;
+    }
+
+    /**
+     * Searches until the path is proven optimal.
+     */
+    @Override
+    public ArrayList<TilePuzzleNode> solve(TilePuzzleNode start) {
+        return search(start, SearchLimit.NONE, SearchListener.NONE).requirePath();
+    }
+
+    @Override
+    public SearchResult solve(TilePuzzleNode start, SearchLimit limit) {
+        return search(start, limit, SearchListener.NONE);
+    }
+
+    /**
+     * @param start: the initial node (puzzle to be solved)
+     * @param budget: time allowed, or null to search until optimal.
+     * @param listener: told of every improved path.
+     * @return the best path found, with a lower bound on the optimal cost.
+     */
+    public SearchResult search(TilePuzzleNode start, Duration budget, SearchListener listener) {
+        return search(start, budget == null ? SearchLimit.NONE : SearchLimit.NONE.withTime(budget),
+                listener);
+    }
+
+    /**
+     * ARA* implementation. The first pass ignores the time limit, so
+     * there is always a path to return once time runs out; the other
+     * limits stop it like any search.
+     *
+     * @param start: the initial node (puzzle to be solved)
+     * @param limit: limits on the search; checked every CHECK_INTERVAL expansions.
+     * @param listener: told of every improved path.
+     * @return the best path found, with a lower bound on the optimal cost.
+     */
+    public SearchResult search(TilePuzzleNode start, SearchLimit limit, SearchListener listener) {
+        long startTime = System.nanoTime();
+        SearchLimit.Monitor monitor = limit.start();
+        SearchStats stats = new SearchStats("ARA*");
+        int n = start.getDimensions();
+        if (n > TilePuzzleNode.PACKED_DIMENSIONS) {
+            throw new IllegalArgumentException("ARA* only handles boards up to "
+                    + TilePuzzleNode.PACKED_DIMENSIONS + "x" + TilePuzzleNode.PACKED_DIMENSIONS);
+        }
+        long goal = TilePuzzleNode.goalState(n);
+
+        NodeArena nodes = new NodeArena(n, 1 << 12);
+
+        // {packed state : node index}, also used as a log of visited nodes.
+        LongIntHashMap visited = new LongIntHashMap(1 << 12);
+
+        // Open and inconsistent nodes counted by f(node) = g(node) + h(node).
+        FrontierBound bound = new FrontierBound();
+
+        // Open nodes; entries for nodes no longer open are stale.
+        BitSet open = new BitSet();
+
+        // Expanded by the current search.
+        BitSet closed = new BitSet();
+
+        // Expanded by the current search, then reached by a cheaper path.
+        BitSet inconsistent = new BitSet();
+
+        int root = nodes.add(start.getPackedState(), start.getBlank(), 0,
+                heuristic.estimate(start), NodeArena.NO_PARENT, NodeArena.NO_MOVE);
+        visited.put(start.getPackedState(), root);
+        open.set(root);
+        bound.add(nodes.f(root));
+
+        // Index of the goal once it has been reached, or -1.
+        int goalNode = start.isGoal() ? root : -1;
+        double weight = initialWeight;
+        SearchResult best = null;
+
+        long generated = 1;
+        long expanded = 0;
+        long duplicates = 0;
+        int maxDepth = 0;
+        int peakOpen = 1;
+        SearchResult.Status stopped = null;
+
+        while (true) {
+            int hScale = AStar.hScale(weight);
+
+            // Order the open nodes (now including the inconsistent ones)
+            // for this weight.
+            BucketOpenList toVisit = new BucketOpenList();
+            for (int i = open.nextSetBit(0); i >= 0; i = open.nextSetBit(i + 1)) {
+                toVisit.push(i, nodes.g(i) * WEIGHT_SCALE + nodes.h(i) * hScale, nodes.g(i));
+            }
+
+            while (!toVisit.isEmpty() && (goalNode == -1
+                    || toVisit.minF() < nodes.g(goalNode) * WEIGHT_SCALE)) {
+                int current = toVisit.pop();
+
+                if (!open.get(current)) {
+                    continue;
+                }
+                open.clear(current);
+                closed.set(current);
+                bound.remove(nodes.f(current));
+                expanded++;
+
+                TilePuzzleNode node = nodes.node(current);
+                int h = nodes.h(current);
+                int childG = nodes.g(current) + 1;
+                int lastMove = nodes.move(current);
+                maxDepth = Math.max(maxDepth, childG);
+
+                for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+
+                    // Undoing the last move leads straight back to the parent.
+                    if (lastMove != NodeArena.NO_MOVE && move == (lastMove ^ 1)) {
+                        continue;
+                    }
+                    TilePuzzleNode child = node.slideBlank(move);
+
+                    if (child == null) {
+                        continue;
+                    }
+                    int existing = visited.get(child.getPackedState());
+                    int index;
+
+                    if (existing == LongIntHashMap.NOT_FOUND) {
+                        index = nodes.add(child.getPackedState(), child.getBlank(), childG,
+                                heuristic.estimateAfterMove(h, child, move), current, move);
+                        visited.put(child.getPackedState(), index);
+                        generated++;
+                    } else if (childG < nodes.g(existing)) {
+                        index = existing;
+                        if (open.get(index) || inconsistent.get(index)) {
+                            bound.remove(nodes.f(index));
+                        }
+                        nodes.relink(index, childG, current, move);
+
+                        if (closed.get(index)) {
+                            // Left for the next search to reopen.
+                            inconsistent.set(index);
+                            bound.add(nodes.f(index));
+                            continue;
+                        }
+                    } else {
+                        duplicates++;
+                        continue;
+                    }
+                    if (child.getPackedState() == goal) {
+                        goalNode = index;
+                    }
+                    open.set(index);
+                    bound.add(nodes.f(index));
+                    toVisit.push(index, childG * WEIGHT_SCALE + nodes.h(index) * hScale, childG);
+                }
+                peakOpen = Math.max(peakOpen, toVisit.size());
+
+                if (expanded % SearchStats.PROGRESS_INTERVAL == 0) {
+                    publish(stats, startTime, generated, expanded, duplicates, peakOpen,
+                            maxDepth, nodes, visited);
+                    listener.progress(stats);
+                }
+                if (expanded % SearchLimit.CHECK_INTERVAL == 0) {
+                    SearchResult.Status status = monitor.check(SearchLimit.CHECK_INTERVAL,
+                            nodes.memoryBytes() + visited.memoryBytes());
+                    if (status != null
+                            && (best != null || status != SearchResult.Status.TIME_LIMIT)) {
+                        stopped = status;
+                        break;
+                    }
+                }
+            }
+
+            if (goalNode == -1) {
+                break;
+            }
+            int cost = nodes.g(goalNode);
+
+            // No path is cheaper than the lowest f still open or
+            // inconsistent; a finished search also leaves the path within
+            // its weight of optimal.
+            int lowerBound = Math.min(cost, bound.min());
+            if (stopped == null) {
+                lowerBound = Math.max(lowerBound, (cost * WEIGHT_SCALE + hScale - 1) / hScale);
+            }
+            if (best != null) {
+                lowerBound = Math.max(lowerBound, best.getLowerBound());
+            }
+            if (best == null || cost < best.getCost() || lowerBound > best.getLowerBound()) {
+                publish(stats, startTime, generated, expanded, duplicates, peakOpen, maxDepth,
+                        nodes, visited);
+                stats.solutionLength = cost;
+                best = new SearchResult(nodes.path(goalNode), lowerBound, stats);
+                listener.solutionImproved(best);
+            }
+            if (stopped != null || best.isOptimal() || weight == 1) {
+                break;
+            }
+            stopped = monitor.check(0, nodes.memoryBytes() + visited.memoryBytes());
+            if (stopped != null) {
+                break;
+            }
+            weight = Math.max(1, weight - weightStep);
+
+            // Next search: inconsistent nodes are reopened and every node
+            // may be expanded again.
+            for (int i = inconsistent.nextSetBit(0); i >= 0; i = inconsistent.nextSetBit(i + 1)) {
+                open.set(i);
+            }
+            inconsistent.clear();
+            closed.clear();
+        }
+        publish(stats, startTime, generated, expanded, duplicates, peakOpen, maxDepth, nodes,
+                visited);
+        lastStats = stats;
+        listener.searchFinished(stats);
+
+        if (stopped != null) {
+            return best == null ? new SearchResult(stopped, null, bound.min(), stats)
+                    : new SearchResult(stopped, best.getPath(), best.getLowerBound(), stats);
+        }
+        if (best == null) {
+            throw new IllegalStateException("Goal node not reachable");
+        }
+        return best;
+    }
+
+    /**
+     * @return stats of the last search to finish (on any thread), or
+     * null if there hasn't been one.
+     */
+    public SearchStats getLastStats() {
+        return lastStats;
+    }
+
+    private static void publish(SearchStats stats, long startTime, long generated, long expanded,
+                                long duplicates, int peakOpen, int maxDepth, NodeArena nodes,
+                                LongIntHashMap visited) {
+        stats.generated = generated;
+        stats.expanded = expanded;
+        stats.duplicates = duplicates;
+        stats.peakOpen = peakOpen;
+        stats.maxDepth = maxDepth;
+        stats.memoryBytes = nodes.memoryBytes() + visited.memoryBytes();
+        stats.storedNodes = nodes.size();
+        stats.elapsedNanos = System.nanoTime() - startTime;
+    }
+}
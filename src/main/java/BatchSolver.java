@@ -0,0 +1,437 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Solves a stream of puzzles on a fixed pool of threads, all sharing one
+ * engine (and so one set of heuristic tables). Results are handed to a
+ * consumer as they complete, or in input order.
+ *
+ * At most maxInFlight puzzles are taken from the stream before their
+ * results have been passed on, so a slow consumer or a run of hard
+ * puzzles holds back reading rather than filling memory; in input order
+ * this also bounds the results waiting behind a slow puzzle.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class BatchSolver implements AutoCloseable {
+
+    /**
+     * Order results are handed to the consumer in.
+     */
+    public enum Order {
+        /**
+         * As soon as each puzzle is solved.
+         */
+        COMPLETION,
+
+        /**
+         * In the order the puzzles were read.
+         */
+        INPUT
+    }
+
+    private final SearchAlgorithm algorithm;
+
+    private final ExecutorService workers;
+
+    private final int threads;
+
+    private final int maxInFlight;
+
+    /**
+     * Limits on the search for each puzzle.
+     */
+    private final SearchLimit limit;
+
+    /**
+     * @param algorithm: engine to solve with; shared by all threads.
+     * @param threads: number of worker threads.
+     * @param maxInFlight: most puzzles read but not yet passed on.
+     */
+    public BatchSolver(SearchAlgorithm algorithm, int threads, int maxInFlight) {
+        this(algorithm, threads, maxInFlight, SearchLimit.NONE);
+    }
+
+    /**
+     * @param algorithm: engine to solve with; shared by all threads.
+     * @param threads: number of worker threads.
+     * @param maxInFlight: most puzzles read but not yet passed on.
+     * @param limit: limits on each puzzle's search; a puzzle cut off
+     *             with no path counts as failed.
+     */
+    public BatchSolver(SearchAlgorithm algorithm, int threads, int maxInFlight, SearchLimit limit) {
+        if (threads < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Need at least one thread and one puzzle in flight");
+        }
+        this.algorithm = algorithm;
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.threads = threads;
+        this.maxInFlight = maxInFlight;
+        this.limit = limit;
+    }
+
+    /**
+     * Solves every puzzle in the stream; returns once every result has
+     * been passed on. The consumer is never called by two threads at once.
+     *
+     * @param puzzles: puzzles to solve; read in the calling thread.
+     * @param order: order to pass results on in.
+     * @param results: receives one result per puzzle.
+     * @return throughput and latency of the batch.
+     * @throws InterruptedException if interrupted while waiting on workers.
+     * @throws RejectedExecutionException if the solver has been closed.
+     * @throws RuntimeException the first exception thrown by the
+     * consumer, once the puzzles already read have finished; no more
+     * are read, and no more results passed on, after it.
+     * @throws Error the first fatal error (other than a stack overflow)
+     * thrown by the engine, likewise.
+     */
+    public Summary solve(Stream<TilePuzzleNode> puzzles, Order order, Consumer<Result> results)
+            throws InterruptedException {
+        Batch batch = new Batch(order, results);
+        long startTime = System.nanoTime();
+        int index = 0;
+
+        Iterator<TilePuzzleNode> it = puzzles.iterator();
+        while (it.hasNext() && batch.getError() == null) {
+            batch.inFlight.acquire();
+            int i = index++;
+            TilePuzzleNode puzzle = it.next();
+            try {
+                workers.execute(() -> batch.run(i, puzzle));
+            } catch (RejectedExecutionException e) {
+                batch.inFlight.release();
+                throw e;
+            }
+        }
+        // Every permit comes back once its result has been passed on.
+        batch.inFlight.acquire(maxInFlight);
+        batch.inFlight.release(maxInFlight);
+
+        Throwable error = batch.getError();
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        } else if (error instanceof Error) {
+            throw (Error) error;
+        } else if (error != null) {
+            throw new IllegalStateException(error);
+        }
+        return new Summary(batch.solved, batch.failed, batch.totalLatency, batch.maxLatency,
+                System.nanoTime() - startTime, threads);
+    }
+
+    /**
+     * Solves every puzzle in the stream, keeping the results.
+     *
+     * @param puzzles: puzzles to solve.
+     * @return results in input order.
+     * @throws InterruptedException if interrupted while waiting on workers.
+     */
+    public ArrayList<Result> solveAll(Stream<TilePuzzleNode> puzzles) throws InterruptedException {
+        ArrayList<Result> results = new ArrayList<>();
+        solve(puzzles, Order.INPUT, results::add);
+        return results;
+    }
+
+    private Result solveOne(int index, TilePuzzleNode puzzle) {
+        long start = System.nanoTime();
+        try {
+            ArrayList<TilePuzzleNode> path = algorithm.solve(puzzle, limit).requirePath();
+            return new Result(index, puzzle, path, System.nanoTime() - start, null);
+        } catch (RuntimeException | StackOverflowError e) {
+            return new Result(index, puzzle, null, System.nanoTime() - start, e);
+        }
+    }
+
+    /**
+     * Stops the worker threads once any running batch has finished.
+     */
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+
+    /**
+     * Results of one call to solve; every field is guarded by the
+     * object's lock.
+     */
+    private class Batch {
+        private final Order order;
+        private final Consumer<Result> results;
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+
+        /**
+         * Results waiting for an earlier puzzle to finish, by index.
+         */
+        private final HashMap<Integer, Result> waiting = new HashMap<>();
+        private int nextIndex;
+
+        private int solved;
+        private int failed;
+        private long totalLatency;
+        private long maxLatency;
+
+        /**
+         * First exception thrown by the consumer or fatal error thrown
+         * by the engine, or null.
+         */
+        private Throwable error;
+
+        Batch(Order order, Consumer<Result> results) {
+            this.order = order;
+            this.results = results;
+        }
+
+        /**
+         * Solves one puzzle on a worker. Anything the engine throws past
+         * solveOne (an OutOfMemoryError from A*, say) still completes
+         * the puzzle, as a failure, so its permit comes back and later
+         * results aren't held up; the error ends the batch.
+         */
+        void run(int index, TilePuzzleNode puzzle) {
+            long start = System.nanoTime();
+            Result result;
+            try {
+                result = solveOne(index, puzzle);
+            } catch (Throwable e) {
+                synchronized (this) {
+                    if (error == null) {
+                        error = e;
+                    }
+                }
+                result = new Result(index, puzzle, null, System.nanoTime() - start, e);
+            }
+            complete(result);
+        }
+
+        synchronized void complete(Result result) {
+            if (result.isSolved()) {
+                solved++;
+            } else {
+                failed++;
+            }
+            totalLatency += result.getLatencyNanos();
+            maxLatency = Math.max(maxLatency, result.getLatencyNanos());
+
+            if (order == Order.COMPLETION) {
+                emit(result);
+                return;
+            }
+            waiting.put(result.getIndex(), result);
+            for (Result next; (next = waiting.remove(nextIndex)) != null; ) {
+                nextIndex++;
+                emit(next);
+            }
+        }
+
+        /**
+         * Passes a result on, unless the consumer has already failed;
+         * its permit is released either way, so solve can't hang.
+         */
+        private void emit(Result result) {
+            try {
+                if (error == null) {
+                    results.accept(result);
+                }
+            } catch (RuntimeException | Error e) {
+                error = e;
+            } finally {
+                inFlight.release();
+            }
+        }
+
+        /**
+         * @return the first exception thrown by the consumer or fatal
+         * error thrown by the engine, or null.
+         */
+        synchronized Throwable getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Outcome of solving one puzzle.
+     */
+    public static class Result {
+        private final int index;
+        private final TilePuzzleNode puzzle;
+        private final ArrayList<TilePuzzleNode> path;
+        private final long latencyNanos;
+        private final Throwable error;
+
+        Result(int index, TilePuzzleNode puzzle, ArrayList<TilePuzzleNode> path,
+               long latencyNanos, Throwable error) {
+            this.index = index;
+            this.puzzle = puzzle;
+            this.path = path;
+            this.latencyNanos = latencyNanos;
+            this.error = error;
+        }
+
+        /**
+         * @return position of the puzzle in the input stream.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public TilePuzzleNode getPuzzle() {
+            return puzzle;
+        }
+
+        /**
+         * @return path from the goal back to the puzzle, or null if the
+         * engine failed.
+         */
+        public ArrayList<TilePuzzleNode> getPath() {
+            return path;
+        }
+
+        /**
+         * @return number of moves in the solution, or -1 if the engine failed.
+         */
+        public int getLength() {
+            return path == null ? -1 : path.size() - 1;
+        }
+
+        /**
+         * @return time spent solving the puzzle, not counting time queued.
+         */
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        /**
+         * @return why the engine failed, or null if it succeeded.
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSolved() {
+            return path != null;
+        }
+
+        @Override
+        public String toString() {
+            if (!isSolved()) {
+                return String.format("#%d failed after %.1f ms: %s", index, latencyNanos / 1e6, error);
+            }
+            return String.format("#%d solved in %d moves, %.1f ms", index, getLength(), latencyNanos / 1e6);
+        }
+    }
+
+    /**
+     * Throughput and latency of a batch.
+     */
+    public static class Summary {
+        private final int solved;
+        private final int failed;
+        private final long totalLatencyNanos;
+        private final long maxLatencyNanos;
+        private final long elapsedNanos;
+        private final int threads;
+
+        Summary(int solved, int failed, long totalLatencyNanos, long maxLatencyNanos,
+                long elapsedNanos, int threads) {
+            this.solved = solved;
+            this.failed = failed;
+            this.totalLatencyNanos = totalLatencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+            this.elapsedNanos = elapsedNanos;
+            this.threads = threads;
+        }
+
+        public int getSolved() {
+            return solved;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return puzzles (solved or not) finished per second of wall time.
+         */
+        public double getPuzzlesPerSecond() {
+            return (solved + failed) / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * @return mean time spent solving a puzzle.
+         */
+        public double getMeanLatencyNanos() {
+            int count = solved + failed;
+            return count == 0 ? 0 : (double) totalLatencyNanos / count;
+        }
+
+        public long getMaxLatencyNanos() {
+            return maxLatencyNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d solved, %d failed in %.2f s on %d thread(s): "
+                            + "%.1f puzzles/s, latency mean %.1f ms, max %.1f ms",
+                    solved, failed, elapsedNanos / 1e9, threads, getPuzzlesPerSecond(),
+                    getMeanLatencyNanos() / 1e6, maxLatencyNanos / 1e6);
+        }
+    }
+
+    /**
+     * Solves puzzle files (or every .txt file in a directory) with
+     * IDA* and Manhattan distance + linear conflict on all cores,
+     * printing each result as it completes and then the summary.
+     *
+     * @param args: puzzle files or directories.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ArrayList<TilePuzzleNode> puzzles = new ArrayList<>();
+
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            ArrayList<Path> files = new ArrayList<>();
+
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> listing = Files.list(path)) {
+                    listing.filter(p -> p.toString().endsWith(".txt")).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+            for (Path file : files) {
+                try {
+                    puzzles.add(new TilePuzzleNode(file.toString()));
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping " + file + ": " + e.getMessage());
+                }
+            }
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        SearchAlgorithm ida = SearchAlgorithm.Type.IDA_STAR.create(new ManhattanWithLinearConflict());
+
+        // 3x3 boards are looked up rather than searched.
+        SearchAlgorithm engine = new EightPuzzleOracle(ida);
+
+        try (BatchSolver solver = new BatchSolver(engine, threads, 4 * threads)) {
+            Summary summary = solver.solve(puzzles.stream(), Order.COMPLETION, System.out::println);
+            System.out.println(summary);
+        }
+    }
+}
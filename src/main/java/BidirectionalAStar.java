@@ -0,0 +1,420 @@
+import java.util.*;
+
+/**
+ * Bidirectional A* that meets in the middle (MM, Holte et al. 2016): one
+ * search runs forward from the start with the heuristic, the other runs
+ * back from the goal with the heuristic turned towards the start (see
+ * InvertibleHeuristic).
+ *
+ * Each side orders its open list by pr(n) = max(g + h, 2g), so neither
+ * search expands a node beyond the halfway point of an optimal path, and
+ * the side with the lower pr goes next. Both sides keep their nodes in
+ * one store, found through one hash of packed states, so a node reached
+ * from one side is seen to meet the other at once. The best meeting
+ * cost U is proven optimal once it is no more than
+ *
+ *     max(lowest pr, lowest f on either side, gF + gB + 1)
+ *
+ * where gF and gB are the lowest g still open on each side.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class BidirectionalAStar implements SearchAlgorithm {
+
+    /**
+     * g of a record not yet reached from a side.
+     */
+    private static final int UNSEEN = -1;
+
+    /**
+     * Heuristic function to inform the forward search.
+     */
+    private final InvertibleHeuristic heuristic;
+
+    /**
+     * Stats of the last search to finish, on any thread.
+     */
+    private volatile SearchStats lastStats;
+
+    /**
+     * @param heuristic: search heuristic of choice.
+     */
+    public BidirectionalAStar(InvertibleHeuristic heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    @Override
+    public ArrayList<TilePuzzleNode> solve(TilePuzzleNode start) {
+        return search(start);
+    }
+
+    @Override
+    public SearchResult solve(TilePuzzleNode start, SearchLimit limit) {
+        return search(start, limit, SearchListener.NONE);
+    }
+
+    /**
+     * @param start: the initial node (puzzle to be solved)
+     * @return the path from the goal state back to the start state.
+     */
+    public ArrayList<TilePuzzleNode> search(TilePuzzleNode start) {
+        return search(start, SearchLimit.NONE, SearchListener.NONE).requirePath();
+    }
+
+    /**
+     * MM implementation.
+     *
+     * @param start: the initial node (puzzle to be solved)
+     * @param limit: limits on the search; checked every CHECK_INTERVAL expansions.
+     * @param listener: told of progress every PROGRESS_INTERVAL expansions.
+     * @return the path found, proven optimal; if cut off, no path and
+     * the lower bound the search had proven.
+     */
+    public SearchResult search(TilePuzzleNode start, SearchLimit limit, SearchListener listener) {
+        long startTime = System.nanoTime();
+        SearchLimit.Monitor monitor = limit.start();
+        SearchStats stats = new SearchStats(getName());
+        int n = start.getDimensions();
+        if (n > TilePuzzleNode.PACKED_DIMENSIONS) {
+            // The state store holds one long per board.
+            throw new IllegalArgumentException("Bidirectional A* only handles boards up to "
+                    + TilePuzzleNode.PACKED_DIMENSIONS + "x" + TilePuzzleNode.PACKED_DIMENSIONS);
+        }
+        TilePuzzleNode goal = new TilePuzzleNode(TilePuzzleNode.goalState(n),
+                n * n - 1, n);
+
+        Store store = new Store(n, 1 << 12);
+        Side forward = new Side(heuristic, store);
+        Side backward = new Side(heuristic.towards(start), store);
+        forward.open(store.find(start), 0, forward.heuristic.estimate(start),
+                NodeArena.NO_PARENT, NodeArena.NO_MOVE);
+        backward.open(store.find(goal), 0, backward.heuristic.estimate(goal),
+                NodeArena.NO_PARENT, NodeArena.NO_MOVE);
+
+        // Best meeting record and cost of the path through it.
+        int meeting = NodeArena.NO_PARENT;
+        int best = Integer.MAX_VALUE;
+        if (start.getPackedState() == goal.getPackedState()) {
+            meeting = 0;
+            best = 0;
+        }
+
+        long generated = 2;
+        long expanded = 0;
+        long duplicates = 0;
+        int peakOpen = 2;
+        int maxDepth = 0;
+        int lowerBound = 0;
+        SearchResult.Status stopped = null;
+
+        while (true) {
+            if (forward.isExhausted() || backward.isExhausted()) {
+                lowerBound = best;
+                break;
+            }
+            lowerBound = Math.max(Math.max(Math.min(forward.openPr.min(), backward.openPr.min()),
+                    Math.max(forward.openF.min(), backward.openF.min())),
+                    forward.openG.min() + backward.openG.min() + 1);
+            if (best <= lowerBound) {
+                lowerBound = best;
+                break;
+            }
+            Side side = forward.openPr.min() <= backward.openPr.min() ? forward : backward;
+            Side other = side == forward ? backward : forward;
+            int current = side.pop();
+
+            if (current == NodeArena.NO_PARENT) {
+                continue;
+            }
+            expanded++;
+
+            TilePuzzleNode node = store.node(current);
+            int h = side.h[current];
+            int childG = side.g[current] + 1;
+            int lastMove = side.move[current];
+            maxDepth = Math.max(maxDepth, childG);
+
+            for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+
+                // Undoing the last move leads straight back to the parent.
+                if (lastMove != NodeArena.NO_MOVE && move == (lastMove ^ 1)) {
+                    continue;
+                }
+                TilePuzzleNode child = node.slideBlank(move);
+
+                if (child == null) {
+                    continue;
+                }
+                int record = store.find(child);
+
+                if (side.g[record] == UNSEEN) {
+                    side.open(record, childG, side.heuristic.estimateAfterMove(h, child, move),
+                            current, move);
+                    generated++;
+                } else if (childG < side.g[record]) {
+                    side.reopen(record, childG, current, move);
+                } else {
+                    duplicates++;
+                    continue;
+                }
+
+                // Meets the other side: a path through this record.
+                if (other.g[record] != UNSEEN && childG + other.g[record] < best) {
+                    best = childG + other.g[record];
+                    meeting = record;
+                }
+            }
+            peakOpen = Math.max(peakOpen, forward.openF.size() + backward.openF.size());
+
+            if (expanded % SearchStats.PROGRESS_INTERVAL == 0) {
+                publish(stats, startTime, generated, expanded, duplicates, peakOpen,
+                        forward, backward, maxDepth, store);
+                listener.progress(stats);
+            }
+            if (expanded % SearchLimit.CHECK_INTERVAL == 0) {
+                stopped = monitor.check(SearchLimit.CHECK_INTERVAL, store.memoryBytes());
+                if (stopped != null) {
+                    lowerBound = Math.min(lowerBound, best);
+                    break;
+                }
+            }
+        }
+        ArrayList<TilePuzzleNode> path = null;
+        if (stopped == null && meeting != NodeArena.NO_PARENT) {
+            path = path(store, forward, backward, meeting);
+        }
+        publish(stats, startTime, generated, expanded, duplicates, peakOpen,
+                forward, backward, maxDepth, store);
+        stats.solutionLength = path == null ? -1 : path.size() - 1;
+        lastStats = stats;
+        listener.searchFinished(stats);
+
+        if (stopped != null) {
+            return new SearchResult(stopped, null, lowerBound, stats);
+        }
+        if (path == null) {
+            throw new IllegalStateException("Goal node not reachable");
+        }
+        return new SearchResult(path, lowerBound, stats);
+    }
+
+    /**
+     * Joins the two halves of the path at the meeting record.
+     *
+     * @return the path from the goal back to the start.
+     */
+    private static ArrayList<TilePuzzleNode> path(Store store, Side forward, Side backward,
+                                                  int meeting) {
+        ArrayList<TilePuzzleNode> path = new ArrayList<>();
+
+        for (int i = meeting; i != NodeArena.NO_PARENT; i = backward.parent[i]) {
+            path.add(store.node(i));
+        }
+        Collections.reverse(path);
+
+        for (int i = forward.parent[meeting]; i != NodeArena.NO_PARENT; i = forward.parent[i]) {
+            path.add(store.node(i));
+        }
+        return path;
+    }
+
+    /**
+     * @return name of the engine, for reports.
+     */
+    public String getName() {
+        return "MM";
+    }
+
+    /**
+     * @return stats of the last search to finish (on any thread), or
+     * null if there hasn't been one.
+     */
+    public SearchStats getLastStats() {
+        return lastStats;
+    }
+
+    private static void publish(SearchStats stats, long startTime, long generated, long expanded,
+                                long duplicates, int peakOpen, Side forward, Side backward,
+                                int maxDepth, Store store) {
+        stats.generated = generated;
+        stats.expanded = expanded;
+        stats.duplicates = duplicates;
+        stats.peakOpen = peakOpen;
+        stats.peakClosed = forward.peakClosed + backward.peakClosed;
+        stats.maxDepth = maxDepth;
+        stats.memoryBytes = store.memoryBytes();
+        stats.storedNodes = store.size;
+        stats.elapsedNanos = System.nanoTime() - startTime;
+    }
+
+    /**
+     * Boards seen from either side, each stored once: packed state and
+     * blank in parallel arrays, found again through a hash of the state.
+     * Each side keeps its own g, h and parent link per record.
+     */
+    private static class Store {
+        private final int dimensions;
+        private final LongIntHashMap records;
+        private long[] states;
+        private byte[] blanks;
+        private int size;
+        private final List<Side> sides = new ArrayList<>(2);
+
+        Store(int dimensions, int initialCapacity) {
+            this.dimensions = dimensions;
+            this.records = new LongIntHashMap(initialCapacity);
+            this.states = new long[initialCapacity];
+            this.blanks = new byte[initialCapacity];
+        }
+
+        /**
+         * @return the record of a board, adding it if new.
+         */
+        int find(TilePuzzleNode node) {
+            long state = node.getPackedState();
+            int record = records.get(state);
+
+            if (record != LongIntHashMap.NOT_FOUND) {
+                return record;
+            }
+            if (size == states.length) {
+                int capacity = size + (size >> 1);
+                states = Arrays.copyOf(states, capacity);
+                blanks = Arrays.copyOf(blanks, capacity);
+                for (Side side : sides) {
+                    side.grow(capacity);
+                }
+            }
+            record = size++;
+            states[record] = state;
+            blanks[record] = (byte) node.getBlank();
+            records.put(state, record);
+            return record;
+        }
+
+        TilePuzzleNode node(int record) {
+            return new TilePuzzleNode(states[record], blanks[record], dimensions);
+        }
+
+        /**
+         * @return bytes held by the records of both sides and the hash.
+         */
+        long memoryBytes() {
+            long perRecord = Long.BYTES + 1 + sides.size() * (3 * Integer.BYTES + 1);
+            return states.length * perRecord + records.memoryBytes();
+        }
+    }
+
+    /**
+     * One direction of the search.
+     */
+    private static class Side {
+        private final Heuristic heuristic;
+        private int[] g;
+        private int[] h;
+        private int[] parent;
+        private byte[] move;
+
+        /**
+         * Record indexes ordered by pr, then deepest g.
+         */
+        private final BucketOpenList toVisit = new BucketOpenList();
+
+        /**
+         * Open records counted by pr, by f and by g.
+         */
+        private final FrontierBound openPr = new FrontierBound();
+        private final FrontierBound openF = new FrontierBound();
+        private final FrontierBound openG = new FrontierBound();
+
+        /**
+         * Expanded records; stale open list entries for these are skipped.
+         */
+        private final BitSet closed = new BitSet();
+        private int closedSize;
+        private int peakClosed;
+
+        Side(Heuristic heuristic, Store store) {
+            this.heuristic = heuristic;
+            grow(store.states.length);
+            store.sides.add(this);
+        }
+
+        /**
+         * Opens a record reached from this side for the first time.
+         */
+        void open(int record, int g, int h, int parent, int move) {
+            this.h[record] = h;
+            link(record, g, parent, move);
+        }
+
+        /**
+         * Opens a record again (or moves it, if open) for a cheaper path.
+         */
+        void reopen(int record, int g, int parent, int move) {
+            if (closed.get(record)) {
+                closed.clear(record);
+                closedSize--;
+            } else {
+                unlink(record);
+            }
+            link(record, g, parent, move);
+        }
+
+        /**
+         * @return the open record with the lowest pr, now closed, or
+         * NO_PARENT if none are open.
+         */
+        int pop() {
+            while (!(toVisit.isEmpty())) {
+                int record = toVisit.pop();
+
+                if (!(closed.get(record))) {
+                    unlink(record);
+                    closed.set(record);
+                    peakClosed = Math.max(peakClosed, ++closedSize);
+                    return record;
+                }
+            }
+            return NodeArena.NO_PARENT;
+        }
+
+        boolean isExhausted() {
+            return openF.size() == 0;
+        }
+
+        private void link(int record, int g, int parent, int move) {
+            this.g[record] = g;
+            this.parent[record] = parent;
+            this.move[record] = (byte) move;
+            int pr = priority(g, h[record]);
+            openPr.add(pr);
+            openF.add(g + h[record]);
+            openG.add(g);
+            toVisit.push(record, pr, g);
+        }
+
+        private void unlink(int record) {
+            openPr.remove(priority(g[record], h[record]));
+            openF.remove(g[record] + h[record]);
+            openG.remove(g[record]);
+        }
+
+        /**
+         * @return MM's priority, max(f, 2g).
+         */
+        private static int priority(int g, int h) {
+            return Math.max(g + h, 2 * g);
+        }
+
+        void grow(int capacity) {
+            int old = g == null ? 0 : g.length;
+            g = g == null ? new int[capacity] : Arrays.copyOf(g, capacity);
+            h = h == null ? new int[capacity] : Arrays.copyOf(h, capacity);
+            parent = parent == null ? new int[capacity] : Arrays.copyOf(parent, capacity);
+            move = move == null ? new byte[capacity] : Arrays.copyOf(move, capacity);
+            Arrays.fill(g, old, capacity, UNSEEN);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import java.util.Arrays;
+
+/**
+ * Open list for unit-cost searches where f only takes a small range of
+ * integer values. Nodes are kept in stacks indexed by [f][g]; pop takes
+ * the lowest f, and within it the deepest g, most recently pushed first.
+ * Preferring deep nodes on the last f-layer reaches the goal after
+ * expanding far fewer of the nodes that share its f-score.
+ *
+ * Both push and pop are O(1) amortised; the only scanning is walking
+ * the f and g cursors over empty buckets.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class BucketOpenList implements OpenList {
+
+    private static final int INITIAL_STACK_SIZE = 8;
+
+    /**
+     * stacks[f][g] holds node indexes; sizes[f][g] their counts.
+     */
+    private int[][][] stacks = new int[0][][];
+    private int[][] sizes = new int[0][];
+
+    /**
+     * Number of nodes in each f bucket.
+     */
+    private int[] counts = new int[0];
+
+    /**
+     * Upper bound on the deepest non-empty g in each f bucket.
+     */
+    private int[] maxG = new int[0];
+
+    /**
+     * Lower bound on the lowest non-empty f bucket.
+     */
+    private int minF = Integer.MAX_VALUE;
+
+    private int size;
+
+    @Override
+    public void push(int node, int f, int g) {
+        if (f >= counts.length) {
+            growF(f);
+        }
+        if (g >= sizes[f].length) {
+            growG(f, g);
+        }
+        int[] stack = stacks[f][g];
+        int top = sizes[f][g];
+
+        if (stack == null) {
+            stack = new int[INITIAL_STACK_SIZE];
+            stacks[f][g] = stack;
+        } else if (top == stack.length) {
+            stack = Arrays.copyOf(stack, top << 1);
+            stacks[f][g] = stack;
+        }
+        stack[top] = node;
+        sizes[f][g] = top + 1;
+
+        counts[f]++;
+        size++;
+        minF = Math.min(minF, f);
+        maxG[f] = Math.max(maxG[f], g);
+    }
+
+    @Override
+    public int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Open list is empty");
+        }
+        while (counts[minF] == 0) {
+            minF++;
+        }
+        int f = minF;
+        int g = maxG[f];
+
+        while (sizes[f][g] == 0) {
+            g--;
+        }
+        maxG[f] = g;
+
+        counts[f]--;
+        size--;
+        return stacks[f][g][--sizes[f][g]];
+    }
+
+    /**
+     * @return the lowest f-score on the open list.
+     */
+    public int minF() {
+        if (size == 0) {
+            throw new IllegalStateException("Open list is empty");
+        }
+        while (counts[minF] == 0) {
+            minF++;
+        }
+        return minF;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void growF(int f) {
+        int length = Math.max(f + 1, counts.length << 1);
+        int old = counts.length;
+
+        stacks = Arrays.copyOf(stacks, length);
+        sizes = Arrays.copyOf(sizes, length);
+        counts = Arrays.copyOf(counts, length);
+        maxG = Arrays.copyOf(maxG, length);
+
+        for (int i = old; i < length; i++) {
+            stacks[i] = new int[0][];
+            sizes[i] = new int[0];
+        }
+    }
+
+    private void growG(int f, int g) {
+        int length = Math.max(g + 1, sizes[f].length << 1);
+        stacks[f] = Arrays.copyOf(stacks[f], length);
+        sizes[f] = Arrays.copyOf(sizes[f], length);
+    }
+}
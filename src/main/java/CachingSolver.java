@@ -0,0 +1,57 @@
+import java.util.ArrayList;
+
+/**
+ * Puts a SolutionCache in front of a search engine: boards (or their
+ * reflections) already solved are answered from the cache, anything else
+ * is searched and its whole path cached.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class CachingSolver implements SearchAlgorithm {
+
+    private final SearchAlgorithm algorithm;
+
+    private final SolutionCache cache;
+
+    /**
+     * @param algorithm: engine used on a cache miss; must find optimal paths.
+     * @param cache: cache to use; may be shared with other solvers.
+     */
+    public CachingSolver(SearchAlgorithm algorithm, SolutionCache cache) {
+        this.algorithm = algorithm;
+        this.cache = cache;
+    }
+
+    @Override
+    public ArrayList<TilePuzzleNode> solve(TilePuzzleNode start) {
+        ArrayList<TilePuzzleNode> path = cache.get(start);
+
+        if (path == null) {
+            path = algorithm.solve(start);
+            cache.put(path);
+        }
+        return path;
+    }
+
+    /**
+     * Only optimal paths are cached; on a hit the result has no stats.
+     */
+    @Override
+    public SearchResult solve(TilePuzzleNode start, SearchLimit limit) {
+        ArrayList<TilePuzzleNode> path = cache.get(start);
+
+        if (path != null) {
+            return new SearchResult(path, path.size() - 1, null);
+        }
+        SearchResult result = algorithm.solve(start, limit);
+        if (result.isOptimal()) {
+            cache.put(result.getPath());
+        }
+        return result;
+    }
+
+    public SolutionCache getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,247 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Exact distances to the goal for every 3x3 board. A board's nine cells
+ * (blank included) are a permutation of 0-8, numbered by its Lehmer code
+ * into a byte table of 9! entries. One breadth-first search back from the
+ * goal fills the 181,440 solvable entries, so a 3x3 board is solved by
+ * taking, at each step, a move to a board one closer: no search at all,
+ * and the same few lookups per move however hard the board is.
+ *
+ * The table (~350 KB) is built on first use, in about a tenth of a
+ * second, and shared by every oracle in the JVM. Other board sizes are
+ * passed on to a fallback engine.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class EightPuzzleOracle implements SearchAlgorithm {
+
+    private static final int DIMENSIONS = 3;
+
+    private static final int CELLS = DIMENSIONS * DIMENSIONS;
+
+    /**
+     * Distance stored for boards that can't reach the goal.
+     */
+    public static final int UNSOLVABLE = -1;
+
+    /**
+     * FACTORIALS[i] is i!.
+     */
+    private static final int[] FACTORIALS = {1, 1, 2, 6, 24, 120, 720, 5040, 40320, 362880};
+
+    /**
+     * Engine for boards other than 3x3, or null.
+     */
+    private final SearchAlgorithm fallback;
+
+    /**
+     * An oracle for 3x3 boards only.
+     */
+    public EightPuzzleOracle() {
+        this(null);
+    }
+
+    /**
+     * @param fallback: engine to solve other board sizes with, or null to
+     *                refuse them.
+     */
+    public EightPuzzleOracle(SearchAlgorithm fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public ArrayList<TilePuzzleNode> solve(TilePuzzleNode start) {
+        if (start.getDimensions() != DIMENSIONS) {
+            return fallback().solve(start);
+        }
+        return path(start);
+    }
+
+    /**
+     * 3x3 boards are answered at once, whatever the limit, and the
+     * result has no stats.
+     */
+    @Override
+    public SearchResult solve(TilePuzzleNode start, SearchLimit limit) {
+        if (start.getDimensions() != DIMENSIONS) {
+            return fallback().solve(start, limit);
+        }
+        ArrayList<TilePuzzleNode> path = path(start);
+        return new SearchResult(path, path.size() - 1, null);
+    }
+
+    /**
+     * @param node: a 3x3 board.
+     * @return the fewest moves taking the board to the goal, or
+     * UNSOLVABLE.
+     */
+    public static int distance(TilePuzzleNode node) {
+        if (node.getDimensions() != DIMENSIONS) {
+            throw new IllegalArgumentException("The oracle only knows 3x3 boards");
+        }
+        return Table.DISTANCES[rank(node.getPackedState())];
+    }
+
+    /**
+     * @param depth: a number of moves.
+     * @return every 3x3 board exactly that many moves from the goal, in
+     * rank order; none past 31.
+     */
+    public static ArrayList<TilePuzzleNode> boardsAt(int depth) {
+        ArrayList<TilePuzzleNode> boards = new ArrayList<>();
+        if (depth < 0) {
+            return boards;
+        }
+        for (int rank = 0; rank < Table.DISTANCES.length; rank++) {
+            if (Table.DISTANCES[rank] == depth) {
+                long state = unrank(rank);
+                int blank = 0;
+                while (TilePuzzleNode.tileAt(state, blank) != 0) {
+                    blank++;
+                }
+                boards.add(new TilePuzzleNode(state, blank, DIMENSIONS));
+            }
+        }
+        return boards;
+    }
+
+    /**
+     * Follows moves that bring the board one closer to the goal.
+     *
+     * @return the path from the goal back to the start.
+     */
+    private static ArrayList<TilePuzzleNode> path(TilePuzzleNode start) {
+        int d = distance(start);
+        if (d == UNSOLVABLE) {
+            throw new IllegalStateException("Goal node not reachable");
+        }
+        ArrayList<TilePuzzleNode> path = new ArrayList<>(d + 1);
+        TilePuzzleNode current = start;
+        path.add(current);
+
+        while (d > 0) {
+            for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+                TilePuzzleNode child = current.slideBlank(move);
+
+                if (child != null && Table.DISTANCES[rank(child.getPackedState())] == d - 1) {
+                    current = child;
+                    d--;
+                    break;
+                }
+            }
+            path.add(current);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Lehmer code of a 3x3 board: each cell contributes the number of
+     * tiles smaller than its own that come after it, times the factorial
+     * of the cells left. The tiles already seen are kept in a bit mask,
+     * so each cell costs one bit count.
+     *
+     * @param packedState: a packed 3x3 board state.
+     * @return the board's index, in [0, 9!).
+     */
+    static int rank(long packedState) {
+        int seen = 0;
+        int rank = 0;
+
+        for (int cell = 0; cell < CELLS; cell++) {
+            int tile = TilePuzzleNode.tileAt(packedState, cell);
+            int smallerAfter = tile - Integer.bitCount(seen & ((1 << tile) - 1));
+            rank += smallerAfter * FACTORIALS[CELLS - 1 - cell];
+            seen |= 1 << tile;
+        }
+        return rank;
+    }
+
+    /**
+     * The inverse of rank: each cell's digit of the code picks the
+     * smallest, second smallest, ... of the tiles not yet placed.
+     *
+     * @param rank: a board's index, in [0, 9!).
+     * @return the packed 3x3 board state.
+     */
+    static long unrank(int rank) {
+        int unseen = (1 << CELLS) - 1;
+        long state = 0;
+
+        for (int cell = 0; cell < CELLS; cell++) {
+            int digit = rank / FACTORIALS[CELLS - 1 - cell];
+            rank %= FACTORIALS[CELLS - 1 - cell];
+
+            int tiles = unseen;
+            for (int i = 0; i < digit; i++) {
+                tiles &= tiles - 1;
+            }
+            int tile = Integer.numberOfTrailingZeros(tiles);
+            unseen &= ~(1 << tile);
+            state |= (long) tile << (TilePuzzleNode.BITS_PER_CELL * cell);
+        }
+        return state;
+    }
+
+    private SearchAlgorithm fallback() {
+        if (fallback == null) {
+            throw new IllegalArgumentException("The oracle only solves 3x3 boards");
+        }
+        return fallback;
+    }
+
+    /**
+     * Holds the table, so it is built (once, safely) by the first
+     * lookup rather than when the class loads.
+     */
+    private static class Table {
+
+        /**
+         * DISTANCES[rank] is the board's distance to the goal, or
+         * UNSOLVABLE.
+         */
+        private static final byte[] DISTANCES = build();
+
+        private static byte[] build() {
+            byte[] distances = new byte[FACTORIALS[CELLS]];
+            Arrays.fill(distances, (byte) UNSOLVABLE);
+
+            // Breadth-first queue of packed states and their blanks.
+            long[] states = new long[FACTORIALS[CELLS] / 2];
+            byte[] blanks = new byte[states.length];
+            long goal = TilePuzzleNode.goalState(DIMENSIONS);
+            states[0] = goal;
+            blanks[0] = CELLS - 1;
+            distances[rank(goal)] = 0;
+            int head = 0;
+            int tail = 1;
+
+            while (head < tail) {
+                long state = states[head];
+                int blank = blanks[head++];
+                int childDistance = distances[rank(state)] + 1;
+
+                for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+                    int target = TilePuzzleNode.targetCell(blank, move, DIMENSIONS);
+
+                    if (target < 0) {
+                        continue;
+                    }
+                    long child = TilePuzzleNode.slide(state, blank, target);
+                    int index = rank(child);
+
+                    if (distances[index] == UNSOLVABLE) {
+                        distances[index] = (byte) childDistance;
+                        states[tail] = child;
+                        blanks[tail++] = (byte) target;
+                    }
+                }
+            }
+            return distances;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Open list of A*_epsilon. The focal list holds the open nodes whose
+ * f = g + h is within a factor (1 + epsilon) of the lowest open f, and
+ * pop takes the one closest to the goal (lowest h, then deepest g).
+ * Nodes above the factor wait in f order and join the focal list as the
+ * lowest f rises.
+ *
+ * Each node popped has f no more than (1 + epsilon) times the optimal
+ * cost, so the path found costs at most that much.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class FocalOpenList implements OpenList {
+
+    private final NodeArena nodes;
+
+    /**
+     * Open nodes by f, kept up to date by the search.
+     */
+    private final FrontierBound bound;
+
+    private final double epsilon;
+
+    /**
+     * Focal nodes, bucketed by [h][g].
+     */
+    private final BucketOpenList focal = new BucketOpenList();
+
+    /**
+     * Nodes not yet in focal, bucketed by [f][g].
+     */
+    private final BucketOpenList waiting = new BucketOpenList();
+
+    /**
+     * @param nodes: arena the node indexes refer to.
+     * @param bound: f-scores of the open nodes, kept by the search.
+     * @param epsilon: allowed excess over the lowest open f (e.g. 0.1).
+     */
+    public FocalOpenList(NodeArena nodes, FrontierBound bound, double epsilon) {
+        this.nodes = nodes;
+        this.bound = bound;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * @param node: index of a node.
+     * @param f: f = g + h of the node, unweighted.
+     * @param g: depth of the node.
+     */
+    @Override
+    public void push(int node, int f, int g) {
+        if (f <= limit()) {
+            focal.push(node, nodes.h(node), g);
+        } else {
+            waiting.push(node, f, g);
+        }
+    }
+
+    @Override
+    public int pop() {
+        int limit = limit();
+
+        while (!waiting.isEmpty() && waiting.minF() <= limit) {
+            int node = waiting.pop();
+            focal.push(node, nodes.h(node), nodes.g(node));
+        }
+        if (focal.isEmpty()) {
+            // Only stale entries are left; hand them back in f order.
+            return waiting.pop();
+        }
+        return focal.pop();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return focal.isEmpty() && waiting.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return focal.size() + waiting.size();
+    }
+
+    /**
+     * @return the highest f allowed into the focal list.
+     */
+    private int limit() {
+        int min = bound.min();
+        return min == Integer.MAX_VALUE ? min : (int) ((1 + epsilon) * min);
+    }
+}
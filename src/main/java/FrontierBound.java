@@ -0,0 +1,70 @@
+import java.util.Arrays;
+
+/**
+ * Number of open nodes at each f = g + h. With an admissible heuristic
+ * some node on an optimal path is always open with its optimal g, so the
+ * lowest f held here is a lower bound on the optimal solution cost, no
+ * matter which order the search expands nodes in.
+ *
+ * Counts are of nodes, not open list entries: the search adds a node
+ * when it is opened, moves it when it is relinked and removes it when it
+ * is closed.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class FrontierBound {
+
+    /**
+     * counts[f] is the number of open nodes with that f-score.
+     */
+    private int[] counts = new int[64];
+
+    /**
+     * Lower bound on the lowest non-empty f.
+     */
+    private int minF = Integer.MAX_VALUE;
+
+    private int size;
+
+    /**
+     * @param f: f-score of a node just opened.
+     */
+    public void add(int f) {
+        if (f >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(f + 1, counts.length << 1));
+        }
+        counts[f]++;
+        size++;
+        minF = Math.min(minF, f);
+    }
+
+    /**
+     * @param f: f-score of a node just closed (or relinked away from f).
+     */
+    public void remove(int f) {
+        counts[f]--;
+        size--;
+    }
+
+    /**
+     * @return the lowest f-score of an open node, or Integer.MAX_VALUE
+     * if none are open.
+     */
+    public int min() {
+        if (size == 0) {
+            return Integer.MAX_VALUE;
+        }
+        while (counts[minF] == 0) {
+            minF++;
+        }
+        return minF;
+    }
+
+    /**
+     * @return number of open nodes.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,468 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Puzzles graded by their exact optimal solution length (depth), for
+ * benchmarks whose cost can be read against difficulty. Random boards
+ * vary too much in depth, and solve time grows exponentially with it.
+ *
+ * 3x3 boards are drawn from the oracle's table, which knows every board
+ * at every depth. Larger boards are random walks back from the goal (no
+ * move undoing the last), solved by an optimal engine to find their
+ * depth; walks for a depth that keep coming up short are lengthened.
+ *
+ * Puzzles are saved in the test resource format, one per file, with the
+ * depth on a line after the board ("optimal 23"); TilePuzzleNode stops
+ * reading before it. Files go in one directory per band of BAND_WIDTH
+ * depths (e.g. 4x4-30-39/d34-2.txt), so a band can be handed straight
+ * to BatchSolver.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class GradedPuzzles {
+
+    /**
+     * Depths covered by one directory.
+     */
+    public static final int BAND_WIDTH = 10;
+
+    /**
+     * Word before the depth in a puzzle file.
+     */
+    private static final String OPTIMAL = "optimal";
+
+    /**
+     * Returned by optimalLength() for files without a depth.
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * Puzzles up to this depth are solved once, untimed, before an
+     * engine's latencies are measured, so they are measured compiled.
+     */
+    private static final int WARMUP_DEPTH = 20;
+
+    /**
+     * Walks in a row aimed at a depth that add no board (a repeat, a
+     * depth with no room, or cut off by the limit) before the depth is
+     * given up on: every board there has been drawn (only the shallowest
+     * few have fewer than a handful), or its boards are out of reach.
+     */
+    private static final int MAX_MISSES = 1000;
+
+    /**
+     * Walks are never longer than this many times the deepest depth
+     * wanted; by then they are as good as random boards.
+     */
+    private static final int MAX_WALK_FACTOR = 4;
+
+    /**
+     * Engine used to find the depth of random walks.
+     */
+    private final SearchAlgorithm optimal;
+
+    /**
+     * Limit on each of those searches; walks it cuts off are dropped.
+     */
+    private final SearchLimit limit;
+
+    private final SplittableRandom random;
+
+    /**
+     * @param optimal: an optimal engine, to find the depth of boards
+     *               larger than 3x3.
+     * @param limit: limit on each search; boards cut off are skipped.
+     * @param seed: seed of the boards drawn.
+     */
+    public GradedPuzzles(SearchAlgorithm optimal, SearchLimit limit, long seed) {
+        this.optimal = optimal;
+        this.limit = limit;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Draws distinct boards at every depth in a range. On 4x4, depths
+     * far past the 50s are very rare and may be left short.
+     *
+     * @param dimensions: the dimensions of the board.
+     * @param minDepth: the shallowest depth.
+     * @param maxDepth: the deepest depth.
+     * @param perDepth: boards wanted at each depth.
+     * @return {depth : boards}; depths with fewer boards than wanted get
+     * all of them, and 3x3 depths no board has (past 31) are left out.
+     */
+    public TreeMap<Integer, ArrayList<TilePuzzleNode>> generate(int dimensions, int minDepth,
+                                                               int maxDepth, int perDepth) {
+        if (minDepth < 0 || minDepth > maxDepth || perDepth < 1) {
+            throw new IllegalArgumentException("Need 0 <= minDepth <= maxDepth and perDepth >= 1");
+        }
+        if (dimensions == 3) {
+            return fromOracle(minDepth, maxDepth, perDepth);
+        }
+        return fromWalks(dimensions, minDepth, maxDepth, perDepth);
+    }
+
+    /**
+     * Picks boards at random (a partial Fisher-Yates shuffle) from all
+     * the boards at each depth.
+     */
+    private TreeMap<Integer, ArrayList<TilePuzzleNode>> fromOracle(int minDepth, int maxDepth,
+                                                                   int perDepth) {
+        TreeMap<Integer, ArrayList<TilePuzzleNode>> graded = new TreeMap<>();
+
+        for (int depth = minDepth; depth <= maxDepth; depth++) {
+            ArrayList<TilePuzzleNode> boards = EightPuzzleOracle.boardsAt(depth);
+            int count = Math.min(perDepth, boards.size());
+
+            for (int i = 0; i < count; i++) {
+                int other = i + random.nextInt(boards.size() - i);
+                boards.set(other, boards.set(i, boards.get(other)));
+            }
+            if (count > 0) {
+                graded.put(depth, new ArrayList<>(boards.subList(0, count)));
+            }
+        }
+        return graded;
+    }
+
+    /**
+     * Walks for the shallowest depth still short of boards, starting as
+     * long as the depth itself. Every walk whose depth has room is kept,
+     * whichever depth it was aimed at; walks the limit cuts off are not.
+     * A depth that misses MAX_MISSES times in a row is left short.
+     */
+    private TreeMap<Integer, ArrayList<TilePuzzleNode>> fromWalks(int dimensions, int minDepth,
+                                                                  int maxDepth, int perDepth) {
+        TreeMap<Integer, ArrayList<TilePuzzleNode>> graded = new TreeMap<>();
+        HashSet<TilePuzzleNode> seen = new HashSet<>();
+        int[] walkLength = new int[maxDepth + 1];
+
+        for (int depth = minDepth; depth <= maxDepth; depth++) {
+            graded.put(depth, new ArrayList<>());
+            walkLength[depth] = depth;
+        }
+        int target = minDepth;
+        int misses = 0;
+        int maxWalk = MAX_WALK_FACTOR * Math.max(maxDepth, 1);
+
+        while (target <= maxDepth) {
+            TilePuzzleNode board = walk(dimensions, walkLength[target]);
+            SearchResult result = optimal.solve(board, limit);
+            int depth = result.isOptimal() ? result.getCost() : UNKNOWN;
+            ArrayList<TilePuzzleNode> boards = graded.get(depth);
+
+            if (boards != null && boards.size() < perDepth && seen.add(board)) {
+                boards.add(board);
+                misses = 0;
+            } else {
+                misses++;
+            }
+            // Walks come out no deeper than they are long, and with the
+            // same parity, so walks that fall short grow by two moves.
+            if (depth != UNKNOWN && depth < target && walkLength[target] + 2 <= maxWalk) {
+                walkLength[target] += 2;
+            }
+            while (target <= maxDepth
+                    && (graded.get(target).size() == perDepth || misses == MAX_MISSES)) {
+                target++;
+                misses = 0;
+            }
+        }
+        graded.values().removeIf(ArrayList::isEmpty);
+        return graded;
+    }
+
+    /**
+     * @param dimensions: the dimensions of the board.
+     * @param length: moves to make.
+     * @return the board reached by a random walk from the goal, never
+     * undoing the move before.
+     */
+    private TilePuzzleNode walk(int dimensions, int length) {
+        int cells = dimensions * dimensions;
+        TilePuzzleNode node = new TilePuzzleNode(TilePuzzleNode.goalState(dimensions),
+                TilePuzzleNode.goalStateHigh(dimensions), cells - 1, dimensions);
+        int[] moves = new int[TilePuzzleNode.NUMBER_OF_MOVES];
+        int last = -1;
+
+        for (int step = 0; step < length; step++) {
+            int legal = 0;
+            for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+                if (move != (last ^ 1)
+                        && TilePuzzleNode.targetCell(node.getBlank(), move, dimensions) >= 0) {
+                    moves[legal++] = move;
+                }
+            }
+            last = moves[random.nextInt(legal)];
+            node.applyMove(last);
+        }
+        return node;
+    }
+
+    //----files----
+
+    /**
+     * Saves graded puzzles, one file per board, in a directory per band.
+     *
+     * @param root: directory to save the bands in.
+     * @param graded: {depth : boards}, all the same size.
+     * @throws IOException if a file can't be written.
+     */
+    public static void write(Path root, Map<Integer, ? extends List<TilePuzzleNode>> graded)
+            throws IOException {
+        for (Map.Entry<Integer, ? extends List<TilePuzzleNode>> entry : graded.entrySet()) {
+            int depth = entry.getKey();
+            int band = depth / BAND_WIDTH * BAND_WIDTH;
+            List<TilePuzzleNode> boards = entry.getValue();
+
+            for (int i = 0; i < boards.size(); i++) {
+                TilePuzzleNode board = boards.get(i);
+                int n = board.getDimensions();
+                Path directory = root.resolve(String.format("%dx%d-%02d-%02d",
+                        n, n, band, band + BAND_WIDTH - 1));
+                Files.createDirectories(directory);
+
+                StringBuilder sb = new StringBuilder().append(n).append('\n');
+                for (int[] row : board.getState()) {
+                    sb.append(Arrays.stream(row).mapToObj(String::valueOf)
+                            .collect(Collectors.joining(" "))).append('\n');
+                }
+                sb.append(OPTIMAL).append(' ').append(depth).append('\n');
+                Files.write(directory.resolve(String.format("d%02d-%d.txt", depth, i + 1)),
+                        sb.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Reads back every graded puzzle of one size under a directory, at
+     * any depth below it; files without a depth are skipped.
+     *
+     * @param root: a directory of bands, or a single band.
+     * @param dimensions: the size of board to read.
+     * @return {depth : boards}, each depth's boards in file name order.
+     * @throws IOException if the directory can't be read.
+     */
+    public static TreeMap<Integer, ArrayList<TilePuzzleNode>> read(Path root, int dimensions)
+            throws IOException {
+        TreeMap<Integer, ArrayList<TilePuzzleNode>> graded = new TreeMap<>();
+        ArrayList<Path> files = new ArrayList<>();
+
+        try (Stream<Path> walk = Files.walk(root)) {
+            walk.filter(p -> p.toString().endsWith(".txt")).sorted().forEach(files::add);
+        }
+        for (Path file : files) {
+            int depth = optimalLength(file);
+            if (depth == UNKNOWN) {
+                continue;
+            }
+            TilePuzzleNode board = new TilePuzzleNode(file.toString());
+            if (board.getDimensions() == dimensions) {
+                graded.computeIfAbsent(depth, d -> new ArrayList<>()).add(board);
+            }
+        }
+        return graded;
+    }
+
+    /**
+     * @param file: a puzzle file.
+     * @return the depth recorded after the board, or UNKNOWN.
+     * @throws IOException if the file can't be read.
+     */
+    public static int optimalLength(Path file) throws IOException {
+        try (Scanner s = new Scanner(file, StandardCharsets.UTF_8.name())) {
+            while (s.hasNext()) {
+                if (s.next().equals(OPTIMAL) && s.hasNextInt()) {
+                    return s.nextInt();
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+
+    //----latency curves----
+
+    /**
+     * Solves every puzzle in the calling thread, after solving those up
+     * to WARMUP_DEPTH once untimed.
+     *
+     * @param engine: the engine to measure.
+     * @param graded: {depth : boards}.
+     * @param limit: limit on each search.
+     * @return one point per depth, shallowest first. A solve counts only
+     * if it is cut off neither by the limit nor short of the depth.
+     */
+    public static ArrayList<DepthLatency> latencyByDepth(SearchAlgorithm engine,
+                                                         Map<Integer, ? extends List<TilePuzzleNode>> graded,
+                                                         SearchLimit limit) {
+        for (Map.Entry<Integer, ? extends List<TilePuzzleNode>> entry : graded.entrySet()) {
+            if (entry.getKey() <= WARMUP_DEPTH) {
+                for (TilePuzzleNode board : entry.getValue()) {
+                    engine.solve(board, limit);
+                }
+            }
+        }
+        ArrayList<DepthLatency> curve = new ArrayList<>();
+
+        for (Map.Entry<Integer, ? extends List<TilePuzzleNode>> entry : graded.entrySet()) {
+            int depth = entry.getKey();
+            List<TilePuzzleNode> boards = entry.getValue();
+            long[] latencies = new long[boards.size()];
+            long expanded = 0;
+            int solved = 0;
+
+            for (int i = 0; i < boards.size(); i++) {
+                long start = System.nanoTime();
+                SearchResult result = engine.solve(boards.get(i), limit);
+                latencies[i] = System.nanoTime() - start;
+
+                if (result.hasPath() && result.getCost() == depth) {
+                    solved++;
+                }
+                if (result.getStats() != null) {
+                    expanded += result.getStats().getExpanded();
+                }
+            }
+            curve.add(new DepthLatency(depth, solved, latencies, expanded));
+        }
+        return curve;
+    }
+
+    /**
+     * Solve times of the puzzles at one depth.
+     */
+    public static class DepthLatency {
+        private final int depth;
+        private final int solved;
+        private final long[] latencies;
+        private final long expanded;
+
+        DepthLatency(int depth, int solved, long[] latencies, long expanded) {
+            this.depth = depth;
+            this.solved = solved;
+            this.latencies = latencies.clone();
+            this.expanded = expanded;
+            Arrays.sort(this.latencies);
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getPuzzles() {
+            return latencies.length;
+        }
+
+        /**
+         * @return puzzles solved at their depth within the limit.
+         */
+        public int getSolved() {
+            return solved;
+        }
+
+        public double getMeanNanos() {
+            return Arrays.stream(latencies).average().orElse(0);
+        }
+
+        public long getMedianNanos() {
+            return latencies.length == 0 ? 0 : latencies[latencies.length / 2];
+        }
+
+        public long getMaxNanos() {
+            return latencies.length == 0 ? 0 : latencies[latencies.length - 1];
+        }
+
+        /**
+         * @return mean expanded nodes per puzzle, or 0 for engines that
+         * keep no stats.
+         */
+        public double getMeanExpanded() {
+            return latencies.length == 0 ? 0 : (double) expanded / latencies.length;
+        }
+
+        /**
+         * @return depth, puzzles, solved, mean/median/max ms and mean
+         * expanded nodes, comma separated.
+         */
+        @Override
+        public String toString() {
+            return String.format("%d,%d,%d,%.3f,%.3f,%.3f,%.0f", depth, getPuzzles(), solved,
+                    getMeanNanos() / 1e6, getMedianNanos() / 1e6, getMaxNanos() / 1e6,
+                    getMeanExpanded());
+        }
+    }
+
+    /**
+     * Either generates graded puzzles:
+     *
+     *   generate dir dimensions minDepth maxDepth perDepth [seed]
+     *
+     * finding 4x4 depths with IDA* and max(walking distance, 6-6-3
+     * databases), or prints a latency curve (CSV) for every engine and
+     * heuristic on the graded puzzles of one size:
+     *
+     *   curve dir dimensions [seconds per puzzle, default 10]
+     *
+     * @param args: as above.
+     */
+    public static void main(String[] args) throws IOException {
+        Path root = Paths.get(args[1]);
+        int dimensions = Integer.parseInt(args[2]);
+
+        if (args[0].equals("generate")) {
+            long seed = args.length > 6 ? Long.parseLong(args[6]) : 2020L;
+            SearchAlgorithm checker = dimensions == 4
+                    ? new IterativeDeepeningAStar(new LazyMaxHeuristic(new WalkingDistance(),
+                    new AdditivePatternDatabase()))
+                    : new IterativeDeepeningAStar(new ManhattanWithLinearConflict());
+            GradedPuzzles puzzles = new GradedPuzzles(checker, SearchLimit.NONE, seed);
+
+            write(root, puzzles.generate(dimensions, Integer.parseInt(args[3]),
+                    Integer.parseInt(args[4]), Integer.parseInt(args[5])));
+            return;
+        }
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        SearchLimit limit = SearchLimit.NONE.withTime(Duration.ofSeconds(seconds));
+        TreeMap<Integer, ArrayList<TilePuzzleNode>> graded = read(root, dimensions);
+
+        ArrayList<Heuristic> heuristics = new ArrayList<>();
+        heuristics.add(new ManhattanDistance());
+        heuristics.add(new ManhattanWithLinearConflict());
+        if (dimensions == 4) {
+            heuristics.add(new WalkingDistance());
+        }
+        System.out.println("engine,heuristic,depth,puzzles,solved,mean_ms,median_ms,max_ms,mean_expanded");
+
+        if (dimensions == 3) {
+            for (DepthLatency point : latencyByDepth(new EightPuzzleOracle(), graded, limit)) {
+                System.out.println("ORACLE,-," + point);
+            }
+        }
+        for (SearchAlgorithm.Type type : SearchAlgorithm.Type.values()) {
+            for (Heuristic heuristic : heuristics) {
+                if (!(type.accepts(heuristic))) {
+                    continue;
+                }
+                String name = type + "," + heuristic.getClass().getSimpleName() + ",";
+                for (DepthLatency point : latencyByDepth(type.create(heuristic), graded, limit)) {
+                    System.out.println(name + point);
+                }
+            }
+        }
+    }
+}
@@ -1,4 +1,36 @@
 public interface Heuristic {
     
     public int estimate(TilePuzzleNode node);
+
+    /**
+     * Estimate for a node reached from its parent by a single move. Only
+     * one tile changes place, so implementations can update the parent's
+     * estimate instead of rescanning the board.
+     *
+     * @param parentH: estimate of the parent node.
+     * @param node: the node after the move.
+     * @param move: index into TilePuzzleNode.MOVES of the move that
+     *            took the parent's blank to its position in node.
+     * @return the estimate of node.
+     */
+    public default int estimateAfterMove(int parentH, TilePuzzleNode node, int move) {
+        return estimate(node);
+    }
+
+    /**
+     * estimateAfterMove for a search that will prune the node anyway if
+     * its estimate is above a limit (IDA* passes bound - g). Heuristics
+     * that combine several estimates can stop once one is above it.
+     *
+     * @param parentH: estimate of the parent node.
+     * @param node: the node after the move.
+     * @param move: index into TilePuzzleNode.MOVES of the move that
+     *            took the parent's blank to its position in node.
+     * @param limit: largest estimate that keeps the node in the search.
+     * @return the estimate of node, or, if that is above limit, any
+     * admissible estimate above limit.
+     */
+    public default int estimateAfterMove(int parentH, TilePuzzleNode node, int move, int limit) {
+        return estimateAfterMove(parentH, node, move);
+    }
 }
@@ -0,0 +1,97 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of node indexes ordered by f-score. Each entry is a
+ * single long (f in the high 32 bits, node index in the low 32) so the
+ * heap never has to look anything up while sifting.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class IndexHeap implements OpenList {
+
+    private long[] heap;
+    private int size;
+
+    /**
+     * @param initialCapacity: number of entries before the heap grows.
+     */
+    public IndexHeap(int initialCapacity) {
+        this.heap = new long[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * Ties on f are not broken by depth; entries with the same f
+     * come out lowest node index first.
+     *
+     * @param node: index of a node.
+     * @param f: f-score of the node (non-negative).
+     * @param g: depth of the node (unused).
+     */
+    @Override
+    public void push(int node, int f, int g) {
+        push(node, f);
+    }
+
+    /**
+     * @param node: index of a node.
+     * @param f: f-score of the node (non-negative).
+     */
+    public void push(int node, int f) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size << 1);
+        }
+        long entry = ((long) f << 32) | node;
+
+        // Sift up.
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    /**
+     * @return index of the node with the lowest f-score.
+     */
+    @Override
+    public int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        long top = heap[0];
+        long last = heap[--size];
+
+        // Sift down.
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return (int) top;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * A heuristic that can estimate the moves to any board, not just the
+ * goal, so a search can run backwards from the goal to a start (see
+ * BidirectionalAStar). Heuristics that only know the goal, such as
+ * pattern databases built for it, don't implement this.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public interface InvertibleHeuristic extends Heuristic {
+
+    /**
+     * The same estimate, but of the moves to another board rather than
+     * to the goal.
+     *
+     * @param target: the board to estimate moves to.
+     * @return the heuristic towards the target.
+     */
+    public InvertibleHeuristic towards(TilePuzzleNode target);
+}
@@ -1,104 +1,437 @@
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * IDA* over a single board that is moved forwards and back in place.
+ * Nothing is allocated per node: the moves taken so far are kept on a
+ * preallocated stack and the solution path is only rebuilt once the goal
+ * is found. The move that would undo the previous one is never tried.
+ *
+ * In perimeter mode (see withPerimeter) the last moves before the goal
+ * are looked up in the shared Perimeter table rather than searched
+ * again in every iteration.
+ *
  * @author Joseph Adamson
  * @version November
  */
-public class IterativeDeepeningAStar {
+public class IterativeDeepeningAStar implements SearchAlgorithm {
 
     /**
-     * Instantiated as false.
+     * Heuristic function to inform the search.
      */
-    private boolean goalFound;
+    private final Heuristic heuristic;
 
     /**
-     * Used to store the path to the goal (if found).
+     * Whether to end the search at the shared perimeter of the goal.
      */
-    private final ArrayList<TilePuzzleNode> solution;
+    private final boolean perimeter;
 
     /**
-     * Heuristic function to inform the search.
+     * Stats of the last search to finish, on any thread.
      */
-    private final Heuristic heuristic;
+    private volatile SearchStats lastStats;
 
     /**
      * @param heuristic: search heuristic of choice.
      */
     public IterativeDeepeningAStar(Heuristic heuristic){
-        
-        this.solution = new ArrayList<>();
+        this(heuristic, false);
+    }
+
+    private IterativeDeepeningAStar(Heuristic heuristic, boolean perimeter) {
         this.heuristic = heuristic;
+        this.perimeter = perimeter;
+    }
+
+    /**
+     * Perimeter search: boards within Perimeter.DEFAULT_RADIUS moves of
+     * the goal take their exact distance from the shared table (built by
+     * the first search of each board size), and boards just outside it
+     * are known to be at least one move further. Boards larger than
+     * TilePuzzleNode.PACKED_DIMENSIONS are searched without it.
+     *
+     * @param heuristic: search heuristic of choice.
+     * @return the engine.
+     */
+    public static IterativeDeepeningAStar withPerimeter(Heuristic heuristic) {
+        return new IterativeDeepeningAStar(heuristic, true);
+    }
+
+    @Override
+    public ArrayList<TilePuzzleNode> solve(TilePuzzleNode start) {
+        return IterativeDeepeningSearch(start);
     }
 
     /**
-     * Search space is gradually expanded, slowly increasing the 
+     * Search space is gradually expanded, slowly increasing the
      * f-score bound according to the next smallest f-score on the
      * frontier.
-     *  
+     *
      * @param start: the start state (puzzle)
-     * @return the path from the start state to the goal state.            
+     * @return the path from the start state to the goal state, with
+     * the goal first.
      */
     public ArrayList<TilePuzzleNode> IterativeDeepeningSearch(TilePuzzleNode start) {
-        
-        int bound = heuristic.estimate(start);
-        
-        while(true) {
-            
-            int boundUpdate = fScoreLimitedSearch(start, 0, bound);
-            
-            if (goalFound) {
-                return solution; 
+        return IterativeDeepeningSearch(start, SearchListener.NONE);
+    }
+
+    /**
+     * Search space is gradually expanded, slowly increasing the
+     * f-score bound according to the next smallest f-score on the
+     * frontier.
+     *
+     * @param start: the start state (puzzle)
+     * @param listener: told of every finished iteration.
+     * @return the path from the start state to the goal state, with
+     * the goal first.
+     */
+    public ArrayList<TilePuzzleNode> IterativeDeepeningSearch(TilePuzzleNode start,
+                                                              SearchListener listener) {
+        return search(start, SearchLimit.NONE, listener).requirePath();
+    }
+
+    @Override
+    public SearchResult solve(TilePuzzleNode start, SearchLimit limit) {
+        return search(start, limit, SearchListener.NONE);
+    }
+
+    /**
+     * IDA* implementation.
+     *
+     * @param start: the start state (puzzle)
+     * @param limit: limits on the search; checked every CHECK_INTERVAL expansions.
+     * @param listener: told of every finished iteration.
+     * @return the (optimal) path found; if cut off, no path and the
+     * bound of the unfinished iteration as the lower bound.
+     */
+    public SearchResult search(TilePuzzleNode start, SearchLimit limit, SearchListener listener) {
+        long startTime = System.nanoTime();
+        int n = start.getDimensions();
+        Perimeter table = perimeter && n <= TilePuzzleNode.PACKED_DIMENSIONS
+                ? Perimeter.forDimensions(n) : null;
+        SearchStats stats = new SearchStats(table == null ? "IDA*" : "IDA* (perimeter)");
+        Search search = new Search(heuristic, start, null, limit.start(), table);
+        int h = heuristic.estimate(start);
+        int bound = h;
+        ArrayList<TilePuzzleNode> path = null;
+        stats.generated = 1;
+
+        while (true) {
+            long iterationStart = System.nanoTime();
+            search.startIteration(bound);
+            int boundUpdate = search.fScoreLimitedSearch(0, h, bound, NodeArena.NO_MOVE);
+
+            SearchStats.Iteration iteration = new SearchStats.Iteration(bound, search.generated,
+                    search.expanded, System.nanoTime() - iterationStart);
+            search.publish(stats, startTime);
+            stats.addIteration(iteration);
+            listener.iterationFinished(iteration, stats);
+
+            if (boundUpdate == Search.FOUND) {
+                path = search.solution(new int[0]);
+                break;
             }
-            
-            if (boundUpdate == Integer.MAX_VALUE) {
-                throw new IllegalStateException("Target not in search space");
+
+            // Every earlier iteration failed, so no path is shorter than
+            // the bound of this one.
+            if (search.stopped != null || boundUpdate == Integer.MAX_VALUE) {
+                break;
             }
-            
+
             bound = boundUpdate;
         }
+        stats.solutionLength = path == null ? -1 : path.size() - 1;
+        lastStats = stats;
+        listener.searchFinished(stats);
+
+        if (search.stopped != null) {
+            return new SearchResult(search.stopped, null, bound, stats);
+        }
+        if (path == null) {
+            throw new IllegalStateException("Target not in search space");
+        }
+        return new SearchResult(path, path.size() - 1, stats);
+    }
+
+    /**
+     * @return stats of the last search to finish (on any thread), or
+     * null if there hasn't been one.
+     */
+    public SearchStats getLastStats() {
+        return lastStats;
     }
 
     /**
-     * Expands current node in a depth first search fashion;
-     * search space is limited by f-score.
-     * 
-     * @param node: current state.
-     * @param g: depth of the node in the search tree/number of 
-     *         moves to reach the current state.
-     * @param bound: defines the search space; algorithm 
-     *             explores all nodes with an f-score < bound.
-     * @return a f-score bound for the next search; the next smallest in
-     * the search space.
+     * Bounded depth first search over one board that is moved in place;
+     * one per call to IterativeDeepeningSearch so the engine itself can
+     * be reused. ParallelIterativeDeepeningAStar runs one per frontier
+     * subtree.
      */
-    private int fScoreLimitedSearch(TilePuzzleNode node, int g, int bound) {
-        
-        int f = g + heuristic.estimate(node); 
-        
-        if (f > bound) {
-            return f;
+    static class Search {
+
+        /**
+         * Returned by the bounded search once the goal is reached.
+         */
+        static final int FOUND = -1;
+
+        private final Heuristic heuristic;
+
+        /**
+         * The board being searched; moved in place.
+         */
+        private final TilePuzzleNode node;
+
+        /**
+         * Checked at every node when searching alongside other threads;
+         * null otherwise.
+         */
+        private final AtomicBoolean stop;
+
+        /**
+         * Limits of the whole search, or null for none.
+         */
+        private final SearchLimit.Monitor monitor;
+
+        /**
+         * Boards near the goal with their exact distances, or null.
+         */
+        private final Perimeter perimeter;
+
+        /**
+         * Parity of g + (moves left) for every board of the search: each
+         * move takes g up by one and the distance up or down by one.
+         */
+        private final int parity;
+
+        /**
+         * Expansions left before the limits are next checked; carried
+         * over from one iteration to the next.
+         */
+        private int untilCheck = SearchLimit.CHECK_INTERVAL;
+
+        /**
+         * Why the limits stopped this search, or null.
+         */
+        SearchResult.Status stopped;
+
+        /**
+         * moves[g] is the move taken at depth g on the current path.
+         */
+        private int[] moves = new int[0];
+
+        /**
+         * Counters for the current iteration; plain fields, as each
+         * Search belongs to one thread.
+         */
+        long generated;
+        long expanded;
+        int maxDepth;
+
+        /**
+         * @param heuristic: search heuristic of choice.
+         * @param start: board to search from; copied, never changed.
+         * @param stop: set by another thread to abandon the search, or null;
+         *            also set by this search if it hits a limit.
+         * @param monitor: limits of the whole search, or null for none.
+         */
+        Search(Heuristic heuristic, TilePuzzleNode start, AtomicBoolean stop,
+               SearchLimit.Monitor monitor) {
+            this(heuristic, start, stop, monitor, null);
+        }
+
+        /**
+         * @param heuristic: search heuristic of choice.
+         * @param start: board to search from; copied, never changed.
+         * @param stop: set by another thread to abandon the search, or null;
+         *            also set by this search if it hits a limit.
+         * @param monitor: limits of the whole search, or null for none.
+         * @param perimeter: table to end the search at, or null to search
+         *                 all the way to the goal.
+         */
+        Search(Heuristic heuristic, TilePuzzleNode start, AtomicBoolean stop,
+               SearchLimit.Monitor monitor, Perimeter perimeter) {
+            this.heuristic = heuristic;
+            this.perimeter = perimeter;
+            this.parity = perimeter == null ? 0 : new ManhattanDistance().estimate(start) & 1;
+            this.node = new TilePuzzleNode(start.getPackedState(), start.getPackedHigh(),
+                    start.getBlank(), start.getDimensions());
+            this.stop = stop;
+            this.monitor = monitor;
+        }
+
+        /**
+         * Makes room on the move stack for a search up to a bound (every
+         * node on the path has f <= bound, so the depth can't pass it)
+         * and clears the counters.
+         */
+        void startIteration(int bound) {
+            if (moves.length <= bound) {
+                moves = new int[bound + 1];
+            }
+            generated = 0;
+            expanded = 0;
+        }
+
+        /**
+         * Every board expanded, bar the root of a whole search, skips
+         * exactly one move (the one undoing its last), so those are
+         * counted from the expansions rather than one by one.
+         *
+         * @param root: whether the search started at the start state.
+         * @return moves skipped this iteration.
+         */
+        long duplicates(boolean root) {
+            return root && expanded > 0 ? expanded - 1 : expanded;
+        }
+
+        /**
+         * Adds this iteration's counters to the totals.
+         */
+        void publish(SearchStats stats, long startTime) {
+            stats.generated += generated;
+            stats.expanded += expanded;
+            stats.duplicates += duplicates(true);
+            stats.maxDepth = Math.max(stats.maxDepth, maxDepth);
+            stats.memoryBytes = Math.max(stats.memoryBytes, 4L * moves.length + 32);
+            stats.storedNodes = Math.max(stats.storedNodes, maxDepth + 1);
+            stats.elapsedNanos = System.nanoTime() - startTime;
+        }
+
+        /**
+         * Expands the board in a depth first search fashion;
+         * search space is limited by f-score. The board is left as
+         * it was found unless the goal is reached.
+         *
+         * @param g: depth of the board in the search tree/number of
+         *         moves to reach the current state.
+         * @param h: heuristic estimate of the board.
+         * @param bound: defines the search space; algorithm
+         *             explores all nodes with an f-score <= bound.
+         * @param lastMove: the move that led here, or NO_MOVE at the root.
+         * @return FOUND, or a f-score bound for the next search; the next
+         * smallest in the search space.
+         */
+        int fScoreLimitedSearch(int g, int h, int bound, int lastMove) {
+            int f = g + h;
+
+            if (f > bound) {
+                return f;
+            }
+
+            // With an admissible h, only boards with h <= radius can be on
+            // the perimeter; those that aren't are further away than it,
+            // by a number of moves of the right parity.
+            if (perimeter != null && h <= perimeter.getRadius()) {
+                int d = perimeter.distance(node.getPackedState());
+                f = d == Perimeter.OUTSIDE ? g + perimeter.getRadius() + 1 : g + d;
+                if (((f ^ parity) & 1) != 0) {
+                    f++;
+                }
+
+                if (f > bound) {
+                    return f;
+                }
+                if (d != Perimeter.OUTSIDE) {
+                    perimeter.walkToGoal(node, moves, g);
+                    moves[g + d] = NodeArena.NO_MOVE;
+                    return FOUND;
+                }
+            }
+
+            if (node.isGoal()) {
+                moves[g] = NodeArena.NO_MOVE;
+                return FOUND;
+            }
+
+            if (stopped != null || (stop != null && stop.get())) {
+                return Integer.MAX_VALUE;
+            }
+
+            expanded++;
+            if (--untilCheck == 0 && checkLimits(SearchLimit.CHECK_INTERVAL)) {
+                return Integer.MAX_VALUE;
+            }
+            if (g > maxDepth) {
+                maxDepth = g;
+            }
+            int min = Integer.MAX_VALUE;
+
+            for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+                // Going straight back can never be part of a shortest path.
+                if (move == (lastMove ^ 1) || !node.applyMove(move)) {
+                    continue;
+                }
+                generated++;
+                moves[g] = move;
+                int childH = heuristic.estimateAfterMove(h, node, move, bound - g - 1);
+                int boundUpdate = fScoreLimitedSearch(g + 1, childH, bound, move);
+
+                if (boundUpdate == FOUND) {
+                    return FOUND;
+                }
+                node.applyMove(move ^ 1);
+
+                // Make sure to obtain the next smallest f-score of all possible
+                // children for the next search step.
+                min = Math.min(boundUpdate, min);
+            }
+            return min;
+        }
+
+        /**
+         * Reports expansions to the monitor and, if a limit has been
+         * reached, stops this search (and, through stop, any it runs
+         * alongside).
+         *
+         * @param expansions: boards expanded since the last check.
+         * @return true if the search must stop.
+         */
+        boolean checkLimits(int expansions) {
+            untilCheck = SearchLimit.CHECK_INTERVAL;
+            if (monitor == null) {
+                return false;
+            }
+            stopped = monitor.check(expansions, 4L * moves.length + 32);
+            if (stopped != null && stop != null) {
+                stop.set(true);
+            }
+            return stopped != null;
         }
-        
-        if (heuristic.estimate(node) == 0) {
-            goalFound = true;
-            solution.add(node);
-            return 0;
+
+        /**
+         * Reports the expansions made since the last check, for a search
+         * that is about to be dropped.
+         *
+         * @return true if the search must stop.
+         */
+        boolean flushLimits() {
+            return checkLimits(SearchLimit.CHECK_INTERVAL - untilCheck);
         }
-        
-        int min = Integer.MAX_VALUE;
-
-        ArrayList<TilePuzzleNode> children = node.generateChildren();
-        for (TilePuzzleNode child : children) {
-            int boundUpdate = fScoreLimitedSearch(child, g + 1, bound);
-            
-            if (goalFound) {
-                solution.add(node);
-                return 0;
+
+        /**
+         * Replays the move stack back from the goal, which is where the
+         * board is after a successful search.
+         *
+         * @param prefix: moves that led to the board this search started
+         *              from, if it didn't start at depth 0.
+         * @return the path, goal first.
+         */
+        ArrayList<TilePuzzleNode> solution(int[] prefix) {
+            System.arraycopy(prefix, 0, moves, 0, prefix.length);
+            int length = prefix.length;
+            while (moves[length] != NodeArena.NO_MOVE) {
+                length++;
             }
+            ArrayList<TilePuzzleNode> path = new ArrayList<>(length + 1);
+            TilePuzzleNode current = new TilePuzzleNode(node.getPackedState(), node.getPackedHigh(),
+                    node.getBlank(), node.getDimensions());
+            path.add(current);
 
-            // Make sure to obtain the next smallest f-score of all possible
-            // children for the next search step.
-            min = Math.min(boundUpdate, min);
+            for (int g = length - 1; g >= 0; g--) {
+                current = current.slideBlank(moves[g] ^ 1);
+                path.add(current);
+            }
+            return path;
         }
-        return min;
     }
 }
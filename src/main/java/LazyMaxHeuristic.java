@@ -0,0 +1,133 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The largest of several admissible heuristics, which is admissible too,
+ * without always paying for all of them. Components are given cheapest
+ * first and evaluated in that order. When the search passes a limit (see
+ * Heuristic.estimateAfterMove), evaluation stops at the first component
+ * above it: the node will be pruned whatever the rest would say, so the
+ * costly lookups only run for nodes they could keep out of the search.
+ *
+ * A component only hears of the move through the combined estimate, not
+ * its own, so each is evaluated in full rather than incrementally.
+ *
+ * Every component counts how often it was evaluated and how often it
+ * ended an evaluation early (a cutoff); a component that is often
+ * evaluated but seldom cuts off is worth moving later, or dropping. The
+ * counters are shared by every thread using the heuristic.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class LazyMaxHeuristic implements Heuristic {
+
+    private final Heuristic[] components;
+
+    private final LongAdder[] evaluations;
+    private final LongAdder[] cutoffs;
+
+    /**
+     * @param components: admissible heuristics, cheapest first.
+     */
+    public LazyMaxHeuristic(Heuristic... components) {
+        if (components.length == 0) {
+            throw new IllegalArgumentException("At least one heuristic is needed");
+        }
+        this.components = components.clone();
+        this.evaluations = new LongAdder[components.length];
+        this.cutoffs = new LongAdder[components.length];
+
+        for (int i = 0; i < components.length; i++) {
+            evaluations[i] = new LongAdder();
+            cutoffs[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return the largest of the component estimates.
+     */
+    @Override
+    public int estimate(TilePuzzleNode node) {
+        return estimate(node, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int estimateAfterMove(int parentH, TilePuzzleNode node, int move) {
+        return estimate(node, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int estimateAfterMove(int parentH, TilePuzzleNode node, int move, int limit) {
+        return estimate(node, limit);
+    }
+
+    /**
+     * @param node: the board to estimate.
+     * @param limit: largest estimate that keeps the node in the search.
+     * @return the largest component estimate, or the first above limit.
+     */
+    private int estimate(TilePuzzleNode node, int limit) {
+        int max = 0;
+
+        for (int i = 0; i < components.length; i++) {
+            int h = components[i].estimate(node);
+            evaluations[i].increment();
+
+            if (h > limit) {
+                cutoffs[i].increment();
+                return h;
+            }
+            max = Math.max(max, h);
+        }
+        return max;
+    }
+
+    /**
+     * @param component: index of a component, in the order given.
+     * @return number of times the component was evaluated.
+     */
+    public long getEvaluations(int component) {
+        return evaluations[component].sum();
+    }
+
+    /**
+     * @param component: index of a component, in the order given.
+     * @return number of evaluations the component ended early by going
+     * over the limit.
+     */
+    public long getCutoffs(int component) {
+        return cutoffs[component].sum();
+    }
+
+    /**
+     * Clears the counters, e.g. between benchmark runs.
+     */
+    public void resetCounters() {
+        for (int i = 0; i < components.length; i++) {
+            evaluations[i].reset();
+            cutoffs[i].reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("max of");
+
+        for (int i = 0; i < components.length; i++) {
+            long evaluated = getEvaluations(i);
+            long cut = getCutoffs(i);
+            sb.append(String.format("%n  %s: %d evaluations, %d cutoffs (%.1f%%)",
+                    components[i].getClass().getSimpleName(), evaluated, cut,
+                    evaluated == 0 ? 0.0 : 100.0 * cut / evaluated));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the components, cheapest first.
+     */
+    public Heuristic[] getComponents() {
+        return Arrays.copyOf(components, components.length);
+    }
+}
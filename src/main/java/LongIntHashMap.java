@@ -0,0 +1,138 @@
+import java.util.Arrays;
+
+/**
+ * Open-addressing (linear probing) hash table mapping packed board
+ * states to node indexes. Keys and values are kept in two primitive
+ * arrays so nothing is boxed; values must be non-negative.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class LongIntHashMap {
+
+    /**
+     * Returned by get() when the key is not in the table.
+     */
+    public static final int NOT_FOUND = -1;
+
+    /**
+     * Table is grown once it is this full.
+     */
+    private static final double LOAD_FACTOR = 0.6;
+
+    private long[] keys;
+
+    /**
+     * A value of NOT_FOUND marks an empty slot.
+     */
+    private int[] values;
+
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    /**
+     * @param expectedSize: number of entries expected; the table grows
+     *                    past this if needed.
+     */
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * @param key: a packed board state.
+     * @return the value stored for the key, or NOT_FOUND.
+     */
+    public int get(long key) {
+        int slot = mix(key) & mask;
+
+        while (values[slot] != NOT_FOUND) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Inserts or replaces the value for a key.
+     *
+     * @param key: a packed board state.
+     * @param value: a non-negative value.
+     */
+    public void put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must be non-negative");
+        }
+        int slot = mix(key) & mask;
+
+        while (values[slot] != NOT_FOUND) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * @return number of entries in the table.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return bytes held by the key and value arrays.
+     */
+    public long memoryBytes() {
+        return (long) keys.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NOT_FOUND);
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NOT_FOUND) {
+                int slot = mix(oldKeys[i]) & mask;
+
+                while (values[slot] != NOT_FOUND) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Packed states differ in only a few nibbles between neighbours,
+     * so the bits are scrambled (murmur3 finalizer) before masking.
+     */
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
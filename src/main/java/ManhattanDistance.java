@@ -1,6 +1,82 @@
-import java.util.HashMap;
+public class ManhattanDistance implements InvertibleHeuristic {
 
-public class ManhattanDistance implements Heuristic {
+    /**
+     * DISTANCES[n][tile * n * n + cell] is the Manhattan distance between
+     * a cell and the goal position of a tile on an n x n board.
+     */
+    private static final int[][] DISTANCES = new int[TilePuzzleNode.MAX_DIMENSIONS + 1][];
+
+    static {
+        for (int n = 1; n <= TilePuzzleNode.MAX_DIMENSIONS; n++) {
+            int[] homes = new int[n * n];
+            for (int tile = 1; tile < n * n; tile++) {
+                homes[tile] = tile - 1;
+            }
+            DISTANCES[n] = distanceTable(n, homes);
+        }
+    }
+
+    /**
+     * Distance tables in use: DISTANCES, or for a heuristic made by
+     * towards, a table for the target's dimensions only.
+     */
+    private final int[][] distances;
+
+    public ManhattanDistance() {
+        this.distances = DISTANCES;
+    }
+
+    private ManhattanDistance(int[][] distances) {
+        this.distances = distances;
+    }
+
+    /**
+     * @param target: board to measure distances to.
+     * @return Manhattan distance to the target instead of the goal.
+     */
+    @Override
+    public ManhattanDistance towards(TilePuzzleNode target) {
+        int n = target.getDimensions();
+        int[][] table = new int[TilePuzzleNode.MAX_DIMENSIONS + 1][];
+        table[n] = distanceTable(n, homes(target));
+        return new ManhattanDistance(table);
+    }
+
+    /**
+     * @param target: a board.
+     * @return homes[tile] is the cell of the tile on the target board.
+     */
+    static int[] homes(TilePuzzleNode target) {
+        int cells = target.getDimensions() * target.getDimensions();
+        int[] homes = new int[cells];
+
+        for (int cell = 0; cell < cells; cell++) {
+            homes[target.getTile(cell)] = cell;
+        }
+        return homes;
+    }
+
+    /**
+     * @param n: the dimensions of the board.
+     * @param homes: homes[tile] is the cell the tile belongs in.
+     * @return table[tile * n * n + cell], the distance between a cell
+     * and the tile's home; zero for the blank.
+     */
+    private static int[] distanceTable(int n, int[] homes) {
+        int cells = n * n;
+        int[] table = new int[cells * cells];
+
+        for (int tile = 1; tile < cells; tile++) {
+            int homeRow = homes[tile] / n;
+            int homeCol = homes[tile] % n;
+
+            for (int cell = 0; cell < cells; cell++) {
+                table[tile * cells + cell] = Math.abs(homeRow - cell / n)
+                        + Math.abs(homeCol - cell % n);
+            }
+        }
+        return table;
+    }
 
     /**
      * <pre>
@@ -20,22 +96,56 @@ public class ManhattanDistance implements Heuristic {
      */
     @Override
     public int estimate(TilePuzzleNode node) {
+        int n = node.getDimensions();
+        int cells = n * n;
+        int[] distances = this.distances[n];
+        long low = node.getPackedState();
+        long high = node.getPackedHigh();
         int count = 0;
 
-        for (int i = 0; i < node.getDimensions(); i++) {
-            for (int j = 0; j < node.getDimensions(); j++) {
-                int val = node.getState()[i][j];
+        for (int cell = 0; cell < cells; cell++) {
+            count += distances[TilePuzzleNode.tileAt(low, high, n, cell) * cells + cell];
+        }
+        return count;
+    }
 
-                if (val != 0) {
+    /**
+     * Only the tile that slid into the parent's blank cell has moved, so the
+     * distance changes by exactly one.
+     */
+    @Override
+    public int estimateAfterMove(int parentH, TilePuzzleNode node, int move) {
+        int n = node.getDimensions();
+        int blank = node.getBlank();
+        int from = TilePuzzleNode.targetCell(blank, move ^ 1, n);
 
-                    // The index position of the value in the goal state.
-                    int goalRow = (val - 1) / node.getDimensions();
-                    int goalCol = (val - 1) % node.getDimensions();
+        return parentH + movedTileDelta(node, from, blank);
+    }
 
-                    count += (Math.abs(goalRow - i) + Math.abs(goalCol - j));
-                }
-            }
-        }
-        return count;
+    /**
+     * Change in Manhattan distance of the tile that moved from cell 'to'
+     * (now the blank) into cell 'from' (the parent's blank).
+     *
+     * @param node: the node after the move.
+     * @param from: cell index of the parent's blank.
+     * @param to: cell index of the node's blank.
+     * @return the change in distance (+1 or -1).
+     */
+    int movedTileDelta(TilePuzzleNode node, int from, int to) {
+        int n = node.getDimensions();
+        int cells = n * n;
+        int tile = node.getTile(from);
+
+        return distances[n][tile * cells + from] - distances[n][tile * cells + to];
+    }
+
+    /**
+     * @param dimensions: the dimensions of the board.
+     * @param tile: a tile (not the blank).
+     * @param cell: cell index (i * dimensions + j).
+     * @return the Manhattan distance between the cell and the tile's goal position.
+     */
+    static int distance(int dimensions, int tile, int cell) {
+        return DISTANCES[dimensions][tile * dimensions * dimensions + cell];
     }
 }
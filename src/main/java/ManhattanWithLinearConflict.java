@@ -1,58 +1,226 @@
 /**
+ * Manhattan distance plus linear conflicts. Tiles that share a row with
+ * their home but are in the wrong order must pass each other: at least
+ * all but the longest run of them in the right order have to leave the
+ * row and come back, two extra moves each, and the same goes for columns.
+ *
+ * A line is keyed by the home positions of the tiles that belong in it,
+ * in order, and the key indexes a table of those extra moves built once
+ * per board size; counting pairs instead would overcharge lines with
+ * three or more tiles all in conflict.
+ *
  * @author Joseph Adamson
  * @version November 2020
  */
-public class ManhattanWithLinearConflict implements Heuristic{
+public class ManhattanWithLinearConflict implements InvertibleHeuristic {
+
+    /**
+     * GOAL_ROWS[n][tile] and GOAL_COLUMNS[n][tile] are where a tile
+     * belongs on an n x n board.
+     */
+    private static final int[][] GOAL_ROWS = new int[TilePuzzleNode.MAX_DIMENSIONS + 1][];
+    private static final int[][] GOAL_COLUMNS = new int[TilePuzzleNode.MAX_DIMENSIONS + 1][];
+
+    /**
+     * CONFLICTS[n][key] is the extra moves of an n-cell line. The key has
+     * a base (n + 1) digit per cell, first cell most significant: 0 if
+     * the tile there doesn't belong in the line, else 1 + its place in it.
+     */
+    private static final byte[][] CONFLICTS = new byte[TilePuzzleNode.MAX_DIMENSIONS + 1][];
+
+    static {
+        for (int n = 1; n <= TilePuzzleNode.MAX_DIMENSIONS; n++) {
+            CONFLICTS[n] = conflictTable(n);
+            GOAL_ROWS[n] = new int[n * n];
+            GOAL_COLUMNS[n] = new int[n * n];
+
+            for (int tile = 1; tile < n * n; tile++) {
+                GOAL_ROWS[n][tile] = (tile - 1) / n;
+                GOAL_COLUMNS[n][tile] = (tile - 1) % n;
+            }
+        }
+    }
+
+    private final ManhattanDistance manhattan;
+
+    /**
+     * Rows and columns tiles belong in: the goal's, or a target's.
+     */
+    private final int[][] homeRows;
+    private final int[][] homeColumns;
+
+    public ManhattanWithLinearConflict() {
+        this(new ManhattanDistance(), GOAL_ROWS, GOAL_COLUMNS);
+    }
+
+    private ManhattanWithLinearConflict(ManhattanDistance manhattan, int[][] homeRows,
+                                        int[][] homeColumns) {
+        this.manhattan = manhattan;
+        this.homeRows = homeRows;
+        this.homeColumns = homeColumns;
+    }
+
+    /**
+     * @param target: board to estimate moves to.
+     * @return Manhattan distance plus linear conflicts with respect to
+     * the target instead of the goal.
+     */
+    @Override
+    public ManhattanWithLinearConflict towards(TilePuzzleNode target) {
+        int n = target.getDimensions();
+        int[] homes = ManhattanDistance.homes(target);
+        int[][] rows = new int[TilePuzzleNode.MAX_DIMENSIONS + 1][];
+        int[][] columns = new int[TilePuzzleNode.MAX_DIMENSIONS + 1][];
+        rows[n] = new int[n * n];
+        columns[n] = new int[n * n];
+
+        for (int tile = 1; tile < n * n; tile++) {
+            rows[n][tile] = homes[tile] / n;
+            columns[n][tile] = homes[tile] % n;
+        }
+        return new ManhattanWithLinearConflict(manhattan.towards(target), rows, columns);
+    }
 
     /**
      * Manhattan distance plus linear conflicts.
-     * 
+     *
      * @param node: the current search state
      * @return the heuristic (priority) value of the node.
      */
     @Override
     public int estimate(TilePuzzleNode node) {
-        int md = 0;
+        int n = node.getDimensions();
+        long low = node.getPackedState();
+        long high = node.getPackedHigh();
         int lc = 0;
 
-        for (int i = 0; i < node.getDimensions(); i++) {
-            for (int j = 0; j < node.getDimensions(); j++) {
+        for (int line = 0; line < n; line++) {
+            lc += rowConflicts(low, high, n, line) + columnConflicts(low, high, n, line);
+        }
+        return manhattan.estimate(node) + lc;
+    }
 
-                int val = node.getState()[i][j];
+    /**
+     * A vertical move only takes a tile out of one row and into another,
+     * leaving the order of its column alone; a horizontal move does the
+     * same for two columns. Only those two lines are rescanned.
+     */
+    @Override
+    public int estimateAfterMove(int parentH, TilePuzzleNode node, int move) {
+        int n = node.getDimensions();
+        int blank = node.getBlank();
+        int from = TilePuzzleNode.targetCell(blank, move ^ 1, n);
 
-                if (val != 0) {
-                    int goalRow = (val - 1) / node.getDimensions();
-                    int goalCol = (val - 1) % node.getDimensions();
+        long low = node.getPackedState();
+        long high = node.getPackedHigh();
+        long parentLow = TilePuzzleNode.slideLow(low, high, n, blank, from);
+        long parentHigh = TilePuzzleNode.slideHigh(low, high, n, blank, from);
 
-                    // Computing Manhattan Distance
-                    md += (Math.abs(goalRow - i) + Math.abs(goalCol - j));
+        int delta = manhattan.movedTileDelta(node, from, blank);
 
-                    // Computing horizontal conflicts.
-                    if (goalRow == i) {
-                        for (int k = j + 1; k < node.getDimensions(); k++) {
-                            int vNeighbour = node.getState()[i][k];
-                            int vNeighbourGoalRow = (vNeighbour - 1) / node.getDimensions();
+        if (TilePuzzleNode.MOVES[move][0] != 0) {
+            int a = blank / n;
+            int b = from / n;
+            delta += rowConflicts(low, high, n, a) + rowConflicts(low, high, n, b)
+                    - rowConflicts(parentLow, parentHigh, n, a)
+                    - rowConflicts(parentLow, parentHigh, n, b);
+        } else {
+            int a = blank % n;
+            int b = from % n;
+            delta += columnConflicts(low, high, n, a) + columnConflicts(low, high, n, b)
+                    - columnConflicts(parentLow, parentHigh, n, a)
+                    - columnConflicts(parentLow, parentHigh, n, b);
+        }
+        return parentH + delta;
+    }
 
-                            if (vNeighbourGoalRow == i && vNeighbour < val) {
-                                lc += 2;
-                            }
-                        }
-                    }
+    /**
+     * @param low: low word of the packed board state.
+     * @param high: high word of the packed board state.
+     * @param n: the dimensions of the board.
+     * @param row: row index.
+     * @return extra moves for the tiles of the row that belong in it.
+     */
+    int rowConflicts(long low, long high, int n, int row) {
+        int[] homeRow = homeRows[n];
+        int[] homeColumn = homeColumns[n];
+        int key = 0;
+
+        for (int j = 0; j < n; j++) {
+            int val = TilePuzzleNode.tileAt(low, high, n, row * n + j);
+            key *= n + 1;
+
+            if (val != 0 && homeRow[val] == row) {
+                key += homeColumn[val] + 1;
+            }
+        }
+        return CONFLICTS[n][key];
+    }
+
+    /**
+     * @param low: low word of the packed board state.
+     * @param high: high word of the packed board state.
+     * @param n: the dimensions of the board.
+     * @param col: column index.
+     * @return extra moves for the tiles of the column that belong in it.
+     */
+    int columnConflicts(long low, long high, int n, int col) {
+        int[] homeRow = homeRows[n];
+        int[] homeColumn = homeColumns[n];
+        int key = 0;
+
+        for (int i = 0; i < n; i++) {
+            int val = TilePuzzleNode.tileAt(low, high, n, i * n + col);
+            key *= n + 1;
+
+            if (val != 0 && homeColumn[val] == col) {
+                key += homeRow[val] + 1;
+            }
+        }
+        return CONFLICTS[n][key];
+    }
+
+    /**
+     * Builds the line table: the tiles that need not move out of the
+     * line are the longest run already in order, so the others (at two
+     * extra moves each) are the fewest that must.
+     *
+     * @param n: the dimensions of the board.
+     * @return table[key] for every key of an n-cell line.
+     */
+    static byte[] conflictTable(int n) {
+        int keys = 1;
+        for (int i = 0; i < n; i++) {
+            keys *= n + 1;
+        }
+        byte[] table = new byte[keys];
+        int[] places = new int[n];
+        int[] run = new int[n];
+
+        for (int key = 0; key < keys; key++) {
+            int tiles = 0;
 
-                    // Computing vertical conflicts.
-                    if (goalCol == j) {
-                        for (int m = i + 1; m < node.getDimensions(); m++) {
-                            int hNeighbour = node.getState()[m][j];
-                            int hNeighbourGoalCol = (hNeighbour - 1) % node.getDimensions();
+            for (int i = n - 1, rest = key; i >= 0; i--, rest /= n + 1) {
+                places[i] = rest % (n + 1);
+            }
+            int longest = 0;
+
+            for (int i = 0; i < n; i++) {
+                if (places[i] == 0) {
+                    continue;
+                }
+                tiles++;
+                run[i] = 1;
 
-                            if (hNeighbourGoalCol == j && hNeighbour < val) {
-                                lc += 2;
-                            }
-                        }
+                for (int j = 0; j < i; j++) {
+                    if (places[j] != 0 && places[j] < places[i]) {
+                        run[i] = Math.max(run[i], run[j] + 1);
                     }
                 }
+                longest = Math.max(longest, run[i]);
             }
+            table[key] = (byte) (2 * (tiles - longest));
         }
-        return md + lc;
+        return table;
     }
 }
@@ -0,0 +1,180 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Node store for graph searches laid out as parallel primitive arrays
+ * (struct of arrays); a node is just an index into them. Compared to
+ * keeping TilePuzzleNode objects in HashMaps this costs a couple of dozen
+ * bytes per node instead of several hundred.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class NodeArena {
+
+    /**
+     * Parent index of the root node.
+     */
+    public static final int NO_PARENT = -1;
+
+    /**
+     * Last move of the root node.
+     */
+    public static final int NO_MOVE = -1;
+
+    private final int dimensions;
+
+    private long[] states;
+    private int[] g;
+    private int[] h;
+    private int[] parents;
+
+    /**
+     * Move (index into TilePuzzleNode.MOVES) that produced the node.
+     */
+    private byte[] moves;
+
+    /**
+     * Cell index of the blank, so nodes can be expanded without
+     * scanning the packed state.
+     */
+    private byte[] blanks;
+
+    private int size;
+
+    /**
+     * @param dimensions: the dimensions of the boards stored.
+     * @param initialCapacity: number of nodes before the arrays grow.
+     */
+    public NodeArena(int dimensions, int initialCapacity) {
+        this.dimensions = dimensions;
+        int capacity = Math.max(16, initialCapacity);
+        states = new long[capacity];
+        g = new int[capacity];
+        h = new int[capacity];
+        parents = new int[capacity];
+        moves = new byte[capacity];
+        blanks = new byte[capacity];
+    }
+
+    /**
+     * Stores a new node.
+     *
+     * @param state: packed board state.
+     * @param blank: cell index of the blank.
+     * @param g: depth of the node.
+     * @param h: heuristic estimate of the node.
+     * @param parent: index of the parent node, or NO_PARENT.
+     * @param move: move that produced the node, or NO_MOVE.
+     * @return the index of the new node.
+     */
+    public int add(long state, int blank, int g, int h, int parent, int move) {
+        if (size == states.length) {
+            grow();
+        }
+        int node = size++;
+        this.states[node] = state;
+        this.blanks[node] = (byte) blank;
+        this.g[node] = g;
+        this.h[node] = h;
+        this.parents[node] = parent;
+        this.moves[node] = (byte) move;
+        return node;
+    }
+
+    /**
+     * Points a node at a cheaper parent.
+     *
+     * @param node: index of the node.
+     * @param g: new depth of the node.
+     * @param parent: index of the new parent.
+     * @param move: move from the new parent to the node.
+     */
+    public void relink(int node, int g, int parent, int move) {
+        this.g[node] = g;
+        this.parents[node] = parent;
+        this.moves[node] = (byte) move;
+    }
+
+    public long state(int node) {
+        return states[node];
+    }
+
+    public int blank(int node) {
+        return blanks[node];
+    }
+
+    public int g(int node) {
+        return g[node];
+    }
+
+    public int h(int node) {
+        return h[node];
+    }
+
+    public int f(int node) {
+        return g[node] + h[node];
+    }
+
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    public int move(int node) {
+        return moves[node];
+    }
+
+    /**
+     * @return number of nodes stored.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the dimensions of the boards stored.
+     */
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @param node: index of a node.
+     * @return the node as a TilePuzzleNode.
+     */
+    public TilePuzzleNode node(int node) {
+        return new TilePuzzleNode(states[node], blanks[node], dimensions);
+    }
+
+    /**
+     * Follows parent links back to the root.
+     *
+     * @param node: index of the last node of the path.
+     * @return the path from node back to the root (node first).
+     */
+    public ArrayList<TilePuzzleNode> path(int node) {
+        ArrayList<TilePuzzleNode> path = new ArrayList<>(g[node] + 1);
+
+        for (int i = node; i != NO_PARENT; i = parents[i]) {
+            path.add(node(i));
+        }
+        return path;
+    }
+
+    /**
+     * @return bytes held by the node arrays.
+     */
+    public long memoryBytes() {
+        return (long) states.length * (Long.BYTES + 3 * Integer.BYTES + 2);
+    }
+
+    private void grow() {
+        int capacity = states.length + (states.length >> 1);
+        states = Arrays.copyOf(states, capacity);
+        g = Arrays.copyOf(g, capacity);
+        h = Arrays.copyOf(h, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        moves = Arrays.copyOf(moves, capacity);
+        blanks = Arrays.copyOf(blanks, capacity);
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Open list (frontier) of a best-first search, holding node indexes
+ * into a NodeArena.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public interface OpenList {
+
+    /**
+     * @param node: index of a node.
+     * @param f: f-score of the node (non-negative).
+     * @param g: depth of the node, used for tie-breaking.
+     */
+    public void push(int node, int f, int g);
+
+    /**
+     * @return index of a node with the lowest f-score.
+     */
+    public int pop();
+
+    public boolean isEmpty();
+
+    public int size();
+
+    /**
+     * Open list strategies A* can be run with.
+     */
+    enum Type {
+
+        /**
+         * Binary heap; O(log n) push and pop, ties broken arbitrarily.
+         */
+        BINARY_HEAP {
+            @Override
+            public OpenList create() {
+                return new IndexHeap(1 << 12);
+            }
+        },
+
+        /**
+         * Array of buckets indexed by f; O(1) push and pop, ties broken
+         * deepest g first (LIFO).
+         */
+        BUCKETS {
+            @Override
+            public OpenList create() {
+                return new BucketOpenList();
+            }
+        };
+
+        /**
+         * @return a new, empty open list.
+         */
+        public abstract OpenList create();
+    }
+}
@@ -0,0 +1,367 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * IDA* split across the workers of a ForkJoinPool. The start state is
+ * first expanded breadth first until there are a few thousand distinct
+ * boards at some depth k; every f-score iteration then searches the
+ * subtrees under those boards as separate tasks, with idle workers
+ * stealing whatever subtrees are left.
+ *
+ * The boards above the frontier are not pruned by the bound, which is
+ * the same as searching with a heuristic of zero there; it is still
+ * admissible, so the first solution found in an iteration is optimal.
+ * Workers share the minimum f-score seen past the bound, which becomes
+ * the next bound, and stop as soon as any of them reaches the goal.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class ParallelIterativeDeepeningAStar implements SearchAlgorithm {
+
+    /**
+     * Number of frontier boards to split the search into.
+     */
+    public static final int DEFAULT_FRONTIER_SIZE = 4096;
+
+    /**
+     * Rough heap cost of a board in the table of boards seen: the board
+     * itself and its HashSet entry.
+     */
+    private static final int SEEN_BYTES = 40 + 48;
+
+    /**
+     * Heuristic function to inform the search; shared by all workers.
+     */
+    private final Heuristic heuristic;
+
+    private final ForkJoinPool pool;
+
+    private final int frontierSize;
+
+    /**
+     * Stats of the last search to finish, on any thread.
+     */
+    private volatile SearchStats lastStats;
+
+    /**
+     * Searches on the common ForkJoinPool.
+     *
+     * @param heuristic: search heuristic of choice; must be thread-safe.
+     */
+    public ParallelIterativeDeepeningAStar(Heuristic heuristic) {
+        this(heuristic, ForkJoinPool.commonPool(), DEFAULT_FRONTIER_SIZE);
+    }
+
+    /**
+     * @param heuristic: search heuristic of choice; must be thread-safe.
+     * @param pool: workers to search with.
+     * @param frontierSize: least number of subtrees to split the search into.
+     */
+    public ParallelIterativeDeepeningAStar(Heuristic heuristic, ForkJoinPool pool, int frontierSize) {
+        if (frontierSize < 1) {
+            throw new IllegalArgumentException("Frontier must hold at least one board");
+        }
+        this.heuristic = heuristic;
+        this.pool = pool;
+        this.frontierSize = frontierSize;
+    }
+
+    @Override
+    public ArrayList<TilePuzzleNode> solve(TilePuzzleNode start) {
+        return IterativeDeepeningSearch(start);
+    }
+
+    /**
+     * @param start: the start state (puzzle)
+     * @return the path from the start state to the goal state, with
+     * the goal first.
+     */
+    public ArrayList<TilePuzzleNode> IterativeDeepeningSearch(TilePuzzleNode start) {
+        return IterativeDeepeningSearch(start, SearchListener.NONE);
+    }
+
+    /**
+     * @param start: the start state (puzzle)
+     * @param listener: told of every finished iteration, in the calling thread.
+     * @return the path from the start state to the goal state, with
+     * the goal first.
+     */
+    public ArrayList<TilePuzzleNode> IterativeDeepeningSearch(TilePuzzleNode start,
+                                                              SearchListener listener) {
+        return search(start, SearchLimit.NONE, listener).requirePath();
+    }
+
+    @Override
+    public SearchResult solve(TilePuzzleNode start, SearchLimit limit) {
+        return search(start, limit, SearchListener.NONE);
+    }
+
+    /**
+     * Parallel IDA* implementation.
+     *
+     * @param start: the start state (puzzle)
+     * @param limit: limits on the search; each worker checks them every
+     *             CHECK_INTERVAL expansions.
+     * @param listener: told of every finished iteration, in the calling thread.
+     * @return the (optimal) path found; if cut off, no path and the
+     * bound of the unfinished iteration as the lower bound.
+     */
+    public SearchResult search(TilePuzzleNode start, SearchLimit limit, SearchListener listener) {
+        long startTime = System.nanoTime();
+        SearchLimit.Monitor monitor = limit.start();
+        SearchStats stats = new SearchStats("parallel IDA*");
+        ArrayList<Subtree> frontier = new ArrayList<>();
+        Subtree root = new Subtree(start, NodeArena.NO_MOVE, heuristic.estimate(start), new int[0]);
+        stats.generated = 1;
+
+        if (start.isGoal()) {
+            return finish(stats, startTime, listener, null, root.path(), 0);
+        }
+        frontier.add(root);
+
+        // Boards seen at any depth so far; a board reached again at the
+        // same or a greater depth adds nothing to the search. Whole boards
+        // are kept, as a 5x5 board doesn't fit in one long.
+        HashSet<TilePuzzleNode> seen = new HashSet<>(frontierSize * 4);
+        seen.add(start);
+
+        while (frontier.size() < frontierSize) {
+            ArrayList<Subtree> next = new ArrayList<>();
+
+            for (Subtree parent : frontier) {
+                stats.expanded++;
+
+                for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+                    if (move == (parent.lastMove ^ 1)) {
+                        continue;
+                    }
+                    TilePuzzleNode child = parent.node.slideBlank(move);
+
+                    if (child == null) {
+                        continue;
+                    }
+                    if (!seen.add(child)) {
+                        stats.duplicates++;
+                        continue;
+                    }
+                    stats.generated++;
+
+                    int[] prefix = Arrays.copyOf(parent.prefix, parent.prefix.length + 1);
+                    prefix[parent.prefix.length] = move;
+                    Subtree subtree = new Subtree(child, move,
+                            heuristic.estimateAfterMove(parent.h, child, move), prefix);
+
+                    // Breadth first, so a goal above the frontier is optimal.
+                    if (child.isGoal()) {
+                        return finish(stats, startTime, listener, null, subtree.path(),
+                                prefix.length);
+                    }
+                    next.add(subtree);
+                }
+            }
+            if (next.isEmpty()) {
+                finish(stats, startTime, listener, null, null, 0);
+                throw new IllegalStateException("Target not in search space");
+            }
+            frontier = next;
+        }
+
+        Subtree[] subtrees = frontier.toArray(new Subtree[0]);
+        int bound = root.h;
+
+        // Frontier boards, their move prefixes and the table of boards seen.
+        int depth = subtrees[0].prefix.length;
+        stats.memoryBytes = (long) seen.size() * SEEN_BYTES + subtrees.length * (112L + 4L * depth);
+        stats.storedNodes = subtrees.length;
+
+        // The frontier is breadth first, so nothing shorter than its depth.
+        SearchResult.Status stopped = monitor.check(stats.expanded, stats.memoryBytes);
+        if (stopped != null) {
+            return finish(stats, startTime, listener, stopped, null, depth);
+        }
+
+        while (true) {
+            long iterationStart = System.nanoTime();
+            Iteration iteration = new Iteration(subtrees, bound, monitor);
+            pool.invoke(new Search(iteration, 0, subtrees.length));
+
+            SearchStats.Iteration done = new SearchStats.Iteration(bound, iteration.generated.sum(),
+                    iteration.expanded.sum(), System.nanoTime() - iterationStart);
+            stats.generated += done.getGenerated();
+            stats.expanded += done.getExpanded();
+            stats.duplicates += iteration.duplicates.sum();
+            stats.maxDepth = Math.max(stats.maxDepth, iteration.maxDepth.get());
+            stats.elapsedNanos = System.nanoTime() - startTime;
+            stats.addIteration(done);
+            listener.iterationFinished(done, stats);
+
+            ArrayList<TilePuzzleNode> solution = iteration.solution.get();
+            if (solution != null) {
+                return finish(stats, startTime, listener, null, solution, solution.size() - 1);
+            }
+
+            // Every earlier iteration failed, so no path is shorter than
+            // the bound of this one.
+            if (iteration.stopped.get() != null) {
+                return finish(stats, startTime, listener, iteration.stopped.get(), null, bound);
+            }
+
+            int boundUpdate = iteration.nextBound.get();
+            if (boundUpdate == Integer.MAX_VALUE) {
+                finish(stats, startTime, listener, null, null, 0);
+                throw new IllegalStateException("Target not in search space");
+            }
+            bound = boundUpdate;
+        }
+    }
+
+    /**
+     * @return stats of the last search to finish (on any thread), or
+     * null if there hasn't been one.
+     */
+    public SearchStats getLastStats() {
+        return lastStats;
+    }
+
+    /**
+     * @param stopped: the limit that stopped the search, or null.
+     * @param path: the path found, or null.
+     * @param lowerBound: no path is shorter than this.
+     */
+    private SearchResult finish(SearchStats stats, long startTime, SearchListener listener,
+                                SearchResult.Status stopped, ArrayList<TilePuzzleNode> path,
+                                int lowerBound) {
+        stats.elapsedNanos = System.nanoTime() - startTime;
+        stats.solutionLength = path == null ? -1 : path.size() - 1;
+        lastStats = stats;
+        listener.searchFinished(stats);
+        return stopped == null ? new SearchResult(path, lowerBound, stats)
+                : new SearchResult(stopped, path, lowerBound, stats);
+    }
+
+    /**
+     * A frontier board and the moves that reach it from the start.
+     */
+    private static class Subtree {
+        private final TilePuzzleNode node;
+        private final int lastMove;
+        private final int h;
+        private final int[] prefix;
+
+        Subtree(TilePuzzleNode node, int lastMove, int h, int[] prefix) {
+            this.node = node;
+            this.lastMove = lastMove;
+            this.h = h;
+            this.prefix = prefix;
+        }
+
+        /**
+         * @return the path from the start to this board, board first.
+         */
+        ArrayList<TilePuzzleNode> path() {
+            ArrayList<TilePuzzleNode> path = new ArrayList<>(prefix.length + 1);
+            TilePuzzleNode current = node;
+            path.add(current);
+
+            for (int g = prefix.length - 1; g >= 0; g--) {
+                current = current.slideBlank(prefix[g] ^ 1);
+                path.add(current);
+            }
+            return path;
+        }
+    }
+
+    /**
+     * State shared by the workers during one f-score iteration.
+     */
+    private static class Iteration {
+        private final Subtree[] subtrees;
+        private final int bound;
+        private final AtomicInteger nextBound = new AtomicInteger(Integer.MAX_VALUE);
+        private final AtomicBoolean stop = new AtomicBoolean();
+        private final AtomicReference<ArrayList<TilePuzzleNode>> solution = new AtomicReference<>();
+        private final SearchLimit.Monitor monitor;
+
+        /**
+         * The first limit a worker ran into, or null.
+         */
+        private final AtomicReference<SearchResult.Status> stopped = new AtomicReference<>();
+
+        /**
+         * Each task adds its counters once, when it finishes.
+         */
+        private final LongAdder generated = new LongAdder();
+        private final LongAdder expanded = new LongAdder();
+        private final LongAdder duplicates = new LongAdder();
+        private final AtomicInteger maxDepth = new AtomicInteger();
+
+        Iteration(Subtree[] subtrees, int bound, SearchLimit.Monitor monitor) {
+            this.subtrees = subtrees;
+            this.bound = bound;
+            this.monitor = monitor;
+        }
+    }
+
+    /**
+     * Searches a range of frontier subtrees, splitting it in half until
+     * there is one subtree per task.
+     */
+    private class Search extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Iteration iteration;
+        private final int from;
+        private final int to;
+
+        Search(Iteration iteration, int from, int to) {
+            this.iteration = iteration;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Search(iteration, from, mid), new Search(iteration, mid, to));
+                return;
+            }
+            if (iteration.stop.get()) {
+                return;
+            }
+            Subtree subtree = iteration.subtrees[from];
+            int bound = iteration.bound;
+            IterativeDeepeningAStar.Search search = new IterativeDeepeningAStar.Search(heuristic,
+                    subtree.node, iteration.stop, iteration.monitor);
+            search.startIteration(Math.max(bound, subtree.prefix.length));
+
+            int boundUpdate = search.fScoreLimitedSearch(subtree.prefix.length, subtree.h,
+                    bound, subtree.lastMove);
+            if (search.stopped != null || search.flushLimits()) {
+                iteration.stopped.compareAndSet(null, search.stopped);
+            }
+
+            iteration.generated.add(search.generated);
+            iteration.expanded.add(search.expanded);
+            iteration.duplicates.add(search.duplicates(subtree.lastMove == NodeArena.NO_MOVE));
+            iteration.maxDepth.accumulateAndGet(search.maxDepth, Math::max);
+
+            if (boundUpdate == IterativeDeepeningAStar.Search.FOUND) {
+                // Any goal found within the bound is optimal; keep the first.
+                if (iteration.stop.compareAndSet(false, true)) {
+                    iteration.solution.set(search.solution(subtree.prefix));
+                }
+            } else {
+                iteration.nextBound.accumulateAndGet(boundUpdate, Math::min);
+            }
+        }
+    }
+}
@@ -0,0 +1,382 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Pattern database for one group of tiles ("pattern"). Every placement of
+ * the pattern tiles on the board is ranked into a compact index and the
+ * table stores the fewest moves of pattern tiles needed to bring them home.
+ *
+ * The table is built by PatternDatabaseBuilder with a breadth-first search
+ * backwards from the goal that only counts moves of pattern tiles; since a
+ * move only ever moves one tile, the databases of disjoint patterns can be
+ * added together.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class PatternDatabase {
+
+    private final int dimensions;
+
+    /**
+     * Tiles in the pattern.
+     */
+    private final int[] tiles;
+
+    /**
+     * Ranking multipliers; multipliers[i] is the number of ways to place
+     * the tiles after the i-th on the cells left over.
+     */
+    private final int[] multipliers;
+
+    /**
+     * indexOf[tile] is the tile's position in the pattern, or -1 if it
+     * is not in it.
+     */
+    private final int[] indexOf;
+
+    /**
+     * Moves needed for every ranked placement (unsigned bytes); either
+     * on the heap or mapped from a PatternDatabaseFile.
+     */
+    private final ByteBuffer table;
+
+    /**
+     * How the table was built.
+     */
+    private final BuildReport buildReport;
+
+    /**
+     * @param dimensions: the dimensions of the board.
+     * @param tiles: tiles in the pattern.
+     * @param table: distance for every ranked placement.
+     * @param buildReport: how the table was built, or null if it was read from disk.
+     */
+    PatternDatabase(int dimensions, int[] tiles, ByteBuffer table, BuildReport buildReport) {
+        this.dimensions = dimensions;
+        this.tiles = tiles.clone();
+        this.multipliers = multipliers(dimensions * dimensions, tiles.length);
+        this.indexOf = new int[dimensions * dimensions];
+        Arrays.fill(indexOf, -1);
+        for (int i = 0; i < tiles.length; i++) {
+            indexOf[tiles[i]] = i;
+        }
+        this.table = table;
+        this.buildReport = buildReport;
+    }
+
+    /**
+     * Builds the database in the calling thread.
+     *
+     * @param dimensions: the dimensions of the board.
+     * @param tiles: tiles in the pattern.
+     * @return the database.
+     */
+    public static PatternDatabase build(int dimensions, int[] tiles) {
+        return new PatternDatabaseBuilder(dimensions, tiles).build();
+    }
+
+    /**
+     * Builds the database on all cores (the common ForkJoinPool).
+     *
+     * @param dimensions: the dimensions of the board.
+     * @param tiles: tiles in the pattern.
+     * @return the database.
+     */
+    public static PatternDatabase buildParallel(int dimensions, int[] tiles) {
+        return new PatternDatabaseBuilder(dimensions, tiles).build(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param cellOf: cellOf[tile] is the cell index the tile sits in.
+     * @return moves needed to bring the pattern tiles home.
+     */
+    public int lookup(int[] cellOf) {
+        long used = 0;
+        int index = 0;
+
+        for (int i = 0; i < tiles.length; i++) {
+            int cell = cellOf[tiles[i]];
+            index += (cell - Long.bitCount(used & ((1L << cell) - 1))) * multipliers[i];
+            used |= 1L << cell;
+        }
+        return table.get(index) & 0xFF;
+    }
+
+    /**
+     * Looks up a board without building a cellOf array. Cells are scanned
+     * in ascending order, so the pattern tiles already seen are exactly
+     * the ones in lower cells; only their positions in the pattern need
+     * remembering to work out how many cells each rank skips.
+     *
+     * @param packedState: a packed board state.
+     * @return moves needed to bring the pattern tiles home.
+     */
+    public int lookup(long packedState) {
+        return lookup(packedState, 0);
+    }
+
+    /**
+     * As above, for boards of any size.
+     *
+     * @param low: low word of a packed board state.
+     * @param high: high word of a packed board state.
+     * @return moves needed to bring the pattern tiles home.
+     */
+    public int lookup(long low, long high) {
+        int cells = dimensions * dimensions;
+        int seen = 0;
+        int index = 0;
+
+        for (int cell = 0; cell < cells; cell++) {
+            int i = indexOf[TilePuzzleNode.tileAt(low, high, dimensions, cell)];
+
+            if (i >= 0) {
+                index += (cell - Integer.bitCount(seen & ((1 << i) - 1))) * multipliers[i];
+                seen |= 1 << i;
+            }
+        }
+        return table.get(index) & 0xFF;
+    }
+
+    /**
+     * @param index: rank of a placement.
+     * @return moves needed to bring the pattern tiles home from it.
+     */
+    int get(int index) {
+        return table.get(index) & 0xFF;
+    }
+
+    /**
+     * @param i: position of a tile in the pattern.
+     * @return the tile's ranking multiplier.
+     */
+    int multiplier(int i) {
+        return multipliers[i];
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return tiles in the pattern.
+     */
+    public int[] getTiles() {
+        return tiles.clone();
+    }
+
+    /**
+     * @return number of entries in the table.
+     */
+    public int size() {
+        return table.capacity();
+    }
+
+    /**
+     * @return read-only view of the table; one unsigned byte per
+     * ranked placement.
+     */
+    public ByteBuffer getTable() {
+        return table.asReadOnlyBuffer();
+    }
+
+    /**
+     * @return how the table was built, or null if it was read from disk.
+     */
+    public BuildReport getBuildReport() {
+        return buildReport;
+    }
+
+    /**
+     * Ranks a placement of k distinct cells out of n into [0, n!/(n-k)!).
+     *
+     * @param positions: cell of each pattern tile.
+     * @param multipliers: ranking multipliers.
+     * @return the rank.
+     */
+    static int rank(int[] positions, int[] multipliers) {
+        long used = 0;
+        int index = 0;
+
+        for (int i = 0; i < positions.length; i++) {
+            int cell = positions[i];
+
+            // Cells already taken by earlier tiles are skipped over.
+            index += (cell - Long.bitCount(used & ((1L << cell) - 1))) * multipliers[i];
+            used |= 1L << cell;
+        }
+        return index;
+    }
+
+    /**
+     * Inverse of rank().
+     *
+     * @param index: a rank.
+     * @param positions: filled with the cell of each pattern tile.
+     * @param multipliers: ranking multipliers.
+     * @param cells: number of cells on the board.
+     */
+    static void unrank(int index, int[] positions, int[] multipliers, int cells) {
+        long used = 0;
+
+        for (int i = 0; i < positions.length; i++) {
+            int free = index / multipliers[i];
+            index %= multipliers[i];
+
+            // Find the free-th cell not yet taken.
+            int cell = 0;
+            for (;; cell++) {
+                if ((used & (1L << cell)) == 0 && free-- == 0) {
+                    break;
+                }
+            }
+            positions[i] = cell;
+            used |= 1L << cell;
+        }
+    }
+
+    /**
+     * @return bitmask of the cells taken by pattern tiles.
+     */
+    static long occupied(int[] positions) {
+        long occupied = 0;
+
+        for (int p : positions) {
+            occupied |= 1L << p;
+        }
+        return occupied;
+    }
+
+    /**
+     * @return index of a free cell among the cells not in occupied.
+     */
+    static int freeIndex(int cell, long occupied) {
+        return cell - Long.bitCount(occupied & ((1L << cell) - 1));
+    }
+
+    /**
+     * Inverse of freeIndex().
+     */
+    static int freeCell(long occupied, int freeIndex) {
+        int cell = 0;
+
+        for (;; cell++) {
+            if ((occupied & (1L << cell)) == 0 && freeIndex-- == 0) {
+                return cell;
+            }
+        }
+    }
+
+    /**
+     * Flood fills the free cells reachable from a cell.
+     *
+     * @param cell: a free cell.
+     * @param occupied: cells taken by pattern tiles.
+     * @param dimensions: the dimensions of the board.
+     * @return bitmask of the region.
+     */
+    static long region(int cell, long occupied, int dimensions) {
+        long region = 1L << cell;
+        long frontier = region;
+
+        while (frontier != 0) {
+            int c = Long.numberOfTrailingZeros(frontier);
+            frontier &= frontier - 1;
+
+            for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+                int target = TilePuzzleNode.targetCell(c, move, dimensions);
+
+                if (target >= 0 && ((occupied | region) & (1L << target)) == 0) {
+                    region |= 1L << target;
+                    frontier |= 1L << target;
+                }
+            }
+        }
+        return region;
+    }
+
+    static int[] multipliers(int cells, int k) {
+        int[] multipliers = new int[k];
+        int product = 1;
+
+        for (int i = k - 1; i >= 0; i--) {
+            multipliers[i] = product;
+            product *= cells - i;
+        }
+        return multipliers;
+    }
+
+    /**
+     * @return n!/(n-k)!, the number of placements of k tiles on n cells.
+     */
+    static int size(int cells, int k) {
+        long size = 1;
+
+        for (int i = 0; i < k; i++) {
+            size *= cells - i;
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Pattern of " + k + " tiles is too large");
+        }
+        return (int) size;
+    }
+
+    static void checkPattern(int cells, int[] tiles) {
+        if (tiles.length == 0 || cells > Long.SIZE) {
+            throw new IllegalArgumentException("Invalid pattern");
+        }
+        long seen = 0;
+        for (int tile : tiles) {
+            if (tile < 1 || tile >= cells) {
+                throw new IllegalArgumentException("Tile " + tile + " is not on the board");
+            }
+            if ((seen & (1L << tile)) != 0) {
+                throw new IllegalArgumentException("Tile " + tile + " appears twice in the pattern");
+            }
+            seen |= 1L << tile;
+        }
+    }
+
+    /**
+     * Layer sizes and timing of a pattern database build.
+     */
+    public static class BuildReport {
+        private final int[] tiles;
+        private final long[] layerSizes;
+        private final long elapsedNanos;
+        private final int threads;
+
+        BuildReport(int[] tiles, long[] layerSizes, long elapsedNanos, int threads) {
+            this.tiles = tiles.clone();
+            this.layerSizes = layerSizes;
+            this.elapsedNanos = elapsedNanos;
+            this.threads = threads;
+        }
+
+        /**
+         * @return number of abstract states (placement plus blank, or
+         * placement and blank cell for patterns built without the blank)
+         * expanded at each depth.
+         */
+        public long[] getLayerSizes() {
+            return layerSizes.clone();
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("pattern %s: %d layers %s in %.1f s on %d thread(s)",
+                    Arrays.toString(tiles), layerSizes.length, Arrays.toString(layerSizes),
+                    elapsedNanos / 1e9, threads);
+        }
+    }
+}
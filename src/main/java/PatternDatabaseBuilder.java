@@ -0,0 +1,382 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Builds a PatternDatabase with a level-synchronous breadth-first search
+ * backwards from the goal, either in the calling thread or split across
+ * the workers of a ForkJoinPool.
+ *
+ * The abstract state is the placement of the pattern tiles plus the
+ * blank, indexed as placement * (cells - k) + (blank's index among the
+ * free cells). Moving the blank over free cells costs nothing, so a whole
+ * region of free cells the blank can reach is visited at once; sliding a
+ * pattern tile goes to the next level.
+ *
+ * Patterns too large for that index (six tiles on a 5x5 board make 2.4
+ * billion states) are searched over placements alone: any pattern tile
+ * may slide into any free neighbouring cell, as if the blank were always
+ * there. The values can only come out lower, so they stay admissible and
+ * additive, and the search needs no more states than the table has entries.
+ *
+ * Each level's frontier is cut into chunks handed to the workers. Visited
+ * and queued states are claimed with an atomic test-and-set on shared
+ * bitsets, and depths are written with compare-and-set into an int array
+ * packing four byte-sized entries per word. Levels are separated by a
+ * barrier, so every placement gets the depth of the level that first
+ * reached it, and the table does not depend on the thread count.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class PatternDatabaseBuilder {
+
+    /**
+     * Depth of placements the search has not reached yet.
+     */
+    private static final int UNVISITED = 0xFF;
+
+    /**
+     * Frontier states handed to a worker at a time.
+     */
+    private static final int CHUNK_SIZE = 1 << 13;
+
+    private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int dimensions;
+    private final int[] tiles;
+    private final int[] multipliers;
+
+    /**
+     * Cells not taken by pattern tiles.
+     */
+    private final int free;
+
+    /**
+     * Whether the blank's position is part of the abstract state.
+     */
+    private final boolean trackBlank;
+
+    /**
+     * Abstract states per placement: free with the blank tracked, else 1.
+     */
+    private final int slots;
+
+    private final int placements;
+
+    /**
+     * Depth of every placement, four to a word.
+     */
+    private final AtomicIntegerArray depths;
+
+    private final long[] visited;
+
+    /**
+     * Stops a state being queued twice for the same level.
+     */
+    private final long[] queued;
+
+    /**
+     * Tracks the blank whenever the abstract states fit an int index.
+     *
+     * @param dimensions: the dimensions of the board.
+     * @param tiles: tiles in the pattern.
+     */
+    public PatternDatabaseBuilder(int dimensions, int[] tiles) {
+        this(dimensions, tiles, (long) PatternDatabase.size(dimensions * dimensions, tiles.length)
+                * (dimensions * dimensions - tiles.length) <= Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param dimensions: the dimensions of the board.
+     * @param tiles: tiles in the pattern.
+     * @param trackBlank: false to search over placements alone.
+     */
+    PatternDatabaseBuilder(int dimensions, int[] tiles, boolean trackBlank) {
+        int cells = dimensions * dimensions;
+        PatternDatabase.checkPattern(cells, tiles);
+
+        this.dimensions = dimensions;
+        this.tiles = tiles.clone();
+        this.multipliers = PatternDatabase.multipliers(cells, tiles.length);
+        this.free = cells - tiles.length;
+        this.trackBlank = trackBlank;
+        this.slots = trackBlank ? free : 1;
+        this.placements = PatternDatabase.size(cells, tiles.length);
+
+        long states = (long) placements * slots;
+        if (states > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pattern of " + tiles.length + " tiles is too large");
+        }
+        int[] packed = new int[(placements + 3) >>> 2];
+        Arrays.fill(packed, -1);
+        this.depths = new AtomicIntegerArray(packed);
+        this.visited = new long[(int) ((states + 63) >>> 6)];
+        this.queued = new long[visited.length];
+    }
+
+    /**
+     * Builds the database in the calling thread.
+     *
+     * @return the database.
+     */
+    public PatternDatabase build() {
+        return build(null);
+    }
+
+    /**
+     * Builds the database, splitting each level across the pool's workers.
+     *
+     * @param pool: workers to use, or null to build in the calling thread.
+     * @return the database.
+     */
+    public PatternDatabase build(ForkJoinPool pool) {
+        long startTime = System.nanoTime();
+        ArrayList<Long> layerSizes = new ArrayList<>();
+
+        int[] positions = new int[tiles.length];
+        for (int i = 0; i < tiles.length; i++) {
+            positions[i] = tiles[i] - 1;
+        }
+        IntList start = new IntList();
+        start.add(stateOf(PatternDatabase.rank(positions, multipliers), dimensions * dimensions - 1,
+                PatternDatabase.occupied(positions)));
+
+        List<IntList> frontier = List.of(start);
+
+        for (int depth = 0; !frontier.isEmpty(); depth++) {
+            ConcurrentLinkedQueue<IntList> next = new ConcurrentLinkedQueue<>();
+            LongAdder expanded = new LongAdder();
+
+            if (pool == null) {
+                IntList buffer = new IntList();
+                for (IntList chunk : frontier) {
+                    expanded.add(expand(chunk, 0, chunk.size(), depth, buffer));
+                }
+                next.add(buffer);
+            } else {
+                ArrayList<Expand> tasks = new ArrayList<>();
+                for (IntList chunk : frontier) {
+                    for (int from = 0; from < chunk.size(); from += CHUNK_SIZE) {
+                        tasks.add(new Expand(chunk, from, Math.min(chunk.size(), from + CHUNK_SIZE),
+                                depth, next, expanded));
+                    }
+                }
+                pool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        ForkJoinTask.invokeAll(tasks);
+                    }
+                });
+            }
+            layerSizes.add(expanded.sum());
+
+            ArrayList<IntList> nextFrontier = new ArrayList<>();
+            for (IntList chunk : next) {
+                if (chunk.size() > 0) {
+                    nextFrontier.add(chunk);
+                }
+            }
+            frontier = nextFrontier;
+            Arrays.fill(queued, 0);
+        }
+
+        byte[] table = new byte[placements];
+        for (int placement = 0; placement < placements; placement++) {
+            table[placement] = (byte) depth(placement);
+        }
+
+        long[] sizes = new long[layerSizes.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = layerSizes.get(i);
+        }
+        int threads = pool == null ? 1 : pool.getParallelism();
+        PatternDatabase.BuildReport report = new PatternDatabase.BuildReport(tiles, sizes,
+                System.nanoTime() - startTime, threads);
+
+        return new PatternDatabase(dimensions, tiles, ByteBuffer.wrap(table), report);
+    }
+
+    /**
+     * Expands a slice of the frontier.
+     *
+     * @param frontier: states on the current level.
+     * @param from: first index of the slice.
+     * @param to: index after the slice.
+     * @param depth: the current level.
+     * @param next: collects states for the next level.
+     * @return number of abstract states expanded.
+     */
+    private long expand(IntList frontier, int from, int to, int depth, IntList next) {
+        int[] positions = new int[tiles.length];
+        long board = (1L << (dimensions * dimensions)) - 1;
+        long expanded = 0;
+
+        for (int q = from; q < to; q++) {
+            int state = frontier.get(q);
+
+            // Already reached through another cell of the same region.
+            if (!claim(visited, state)) {
+                continue;
+            }
+            int placement = state / slots;
+            PatternDatabase.unrank(placement, positions, multipliers, dimensions * dimensions);
+            long occupied = PatternDatabase.occupied(positions);
+            int first = PatternDatabase.freeCell(occupied, state % slots);
+            long region = trackBlank ? PatternDatabase.region(first, occupied, dimensions)
+                    : board & ~occupied;
+
+            setDepth(placement, depth);
+
+            for (long rest = region; rest != 0; rest &= rest - 1) {
+                int blank = Long.numberOfTrailingZeros(rest);
+
+                if (trackBlank && blank != first
+                        && !claim(visited, stateOf(placement, blank, occupied))) {
+                    continue;
+                }
+                expanded++;
+
+                for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+                    int target = TilePuzzleNode.targetCell(blank, move, dimensions);
+
+                    if (target < 0 || (occupied & (1L << target)) == 0) {
+                        continue;
+                    }
+
+                    // A pattern tile slides into the blank.
+                    int i = 0;
+                    while (positions[i] != target) {
+                        i++;
+                    }
+                    positions[i] = blank;
+                    long nextOccupied = occupied ^ (1L << target) ^ (1L << blank);
+                    int nextState = stateOf(PatternDatabase.rank(positions, multipliers), target,
+                            nextOccupied);
+                    positions[i] = target;
+
+                    if (!isSet(visited, nextState) && claim(queued, nextState)) {
+                        next.add(nextState);
+                    }
+                }
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * @param placement: rank of the pattern tiles' cells.
+     * @param blank: cell of the blank.
+     * @param occupied: cells taken by pattern tiles.
+     * @return index of the abstract state.
+     */
+    private int stateOf(int placement, int blank, long occupied) {
+        return trackBlank ? placement * free + PatternDatabase.freeIndex(blank, occupied) : placement;
+    }
+
+    /**
+     * @return the depth recorded for a placement.
+     */
+    private int depth(int placement) {
+        return (depths.get(placement >>> 2) >>> ((placement & 3) << 3)) & 0xFF;
+    }
+
+    /**
+     * Records a depth for a placement unless one is already set.
+     */
+    private void setDepth(int placement, int depth) {
+        int word = placement >>> 2;
+        int shift = (placement & 3) << 3;
+
+        while (true) {
+            int old = depths.get(word);
+
+            if (((old >>> shift) & 0xFF) != UNVISITED) {
+                return;
+            }
+            int updated = (old & ~(0xFF << shift)) | (depth << shift);
+
+            if (depths.compareAndSet(word, old, updated)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean isSet(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Atomically sets a bit.
+     *
+     * @return true if this call set it, false if it was already set.
+     */
+    private static boolean claim(long[] bits, int index) {
+        long bit = 1L << index;
+        long old = (long) BITS.getAndBitwiseOr(bits, index >>> 6, bit);
+        return (old & bit) == 0;
+    }
+
+    /**
+     * Expands one chunk of a level into its own buffer.
+     */
+    private class Expand extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntList frontier;
+        private final int from;
+        private final int to;
+        private final int depth;
+        private final ConcurrentLinkedQueue<IntList> next;
+        private final LongAdder expanded;
+
+        Expand(IntList frontier, int from, int to, int depth,
+               ConcurrentLinkedQueue<IntList> next, LongAdder expanded) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+            this.next = next;
+            this.expanded = expanded;
+        }
+
+        @Override
+        protected void compute() {
+            IntList buffer = new IntList();
+            expanded.add(expand(frontier, from, to, depth, buffer));
+            next.add(buffer);
+        }
+    }
+
+    /**
+     * Growable list of ints, used for the BFS levels.
+     */
+    private static class IntList {
+        private int[] items = new int[1024];
+        private int size;
+
+        void add(int item) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size + (size >> 1));
+            }
+            items[size++] = item;
+        }
+
+        int get(int index) {
+            return items[index];
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
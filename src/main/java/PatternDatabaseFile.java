@@ -0,0 +1,230 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Binary file format for pattern databases. Tables are opened with
+ * FileChannel.map, so nothing is read up front: pages are faulted in as
+ * lookups touch them, and every solver process on the machine shares the
+ * same page cache.
+ *
+ * <pre>
+ *     offset  size   field
+ *     0       4      magic "TPDB"
+ *     4       4      format version
+ *     8       4      board dimensions
+ *     12      4      bits per entry (8)
+ *     16      8      number of entries
+ *     24      8      CRC32 of the table
+ *     32      4      number of pattern tiles, k
+ *     36      4 * k  pattern tiles
+ *     ...            zero padding up to a multiple of 64 bytes
+ *     ...            table, one unsigned byte per ranked placement
+ * </pre>
+ *
+ * All fields are big-endian.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class PatternDatabaseFile {
+
+    public static final int MAGIC = 0x54504442;
+
+    public static final int VERSION = 1;
+
+    public static final int ENTRY_BITS = 8;
+
+    private static final int HEADER_ALIGNMENT = 64;
+
+    /**
+     * Writes a database to disk. The file is written next to its final
+     * name and moved into place, so readers never see a partial file.
+     *
+     * @param database: the database to write.
+     * @param file: where to write it.
+     * @throws IOException if the file can't be written.
+     */
+    public static void write(PatternDatabase database, Path file) throws IOException {
+        ByteBuffer table = database.getTable();
+        int[] tiles = database.getTiles();
+
+        ByteBuffer header = ByteBuffer.allocate(headerSize(tiles.length));
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(database.getDimensions())
+                .putInt(ENTRY_BITS)
+                .putLong(table.remaining())
+                .putLong(checksum(table))
+                .putInt(tiles.length);
+        for (int tile : tiles) {
+            header.putInt(tile);
+        }
+        header.position(0);
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (table.hasRemaining()) {
+                channel.write(table);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        // Temp files are private to their owner; the table is meant to be
+        // shared with other solver processes.
+        try {
+            Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-r--r--"));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system; keep the default permissions.
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a database file. Only the header is read; the table is
+     * checked against its checksum only when verify is set, since that
+     * touches every page.
+     *
+     * @param file: a database file.
+     * @param dimensions: the expected board dimensions.
+     * @param tiles: the expected pattern tiles.
+     * @param verify: whether to check the table against its checksum.
+     * @return the database.
+     * @throws IOException if the file can't be read.
+     * @throws StaleDatabaseException if the file doesn't match what is
+     * expected (old version, different pattern, truncated or corrupt).
+     */
+    public static PatternDatabase read(Path file, int dimensions, int[] tiles, boolean verify)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer fixed = ByteBuffer.allocate(36);
+            readFully(channel, fixed, 0);
+
+            if (fixed.getInt(0) != MAGIC) {
+                throw new StaleDatabaseException(file + " is not a pattern database");
+            }
+            if (fixed.getInt(4) != VERSION) {
+                throw new StaleDatabaseException(file + " has format version " + fixed.getInt(4));
+            }
+            int k = fixed.getInt(32);
+            if (fixed.getInt(8) != dimensions || fixed.getInt(12) != ENTRY_BITS || k != tiles.length) {
+                throw new StaleDatabaseException(file + " was built for a different pattern");
+            }
+
+            ByteBuffer tileBuffer = ByteBuffer.allocate(4 * k);
+            readFully(channel, tileBuffer, 36);
+            int[] stored = new int[k];
+            for (int i = 0; i < k; i++) {
+                stored[i] = tileBuffer.getInt(4 * i);
+            }
+            if (!Arrays.equals(stored, tiles)) {
+                throw new StaleDatabaseException(file + " was built for a different pattern");
+            }
+
+            long entries = fixed.getLong(16);
+            long expected = PatternDatabase.size(dimensions * dimensions, k);
+            long offset = headerSize(k);
+            if (entries != expected || channel.size() != offset + entries) {
+                throw new StaleDatabaseException(file + " is truncated");
+            }
+
+            ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, offset, entries);
+
+            if (verify && checksum(table) != fixed.getLong(24)) {
+                throw new StaleDatabaseException(file + " failed its checksum");
+            }
+            return new PatternDatabase(dimensions, tiles, table, null);
+        }
+    }
+
+    /**
+     * Maps the database if the file is there and current, otherwise builds
+     * it on all cores and writes it for next time. Failing to write the
+     * file is reported but not fatal.
+     *
+     * @param file: a database file, which need not exist.
+     * @param dimensions: the board dimensions.
+     * @param tiles: the pattern tiles.
+     * @return the database.
+     */
+    public static PatternDatabase readOrBuild(Path file, int dimensions, int[] tiles) {
+        if (Files.exists(file)) {
+            try {
+                return read(file, dimensions, tiles, false);
+            } catch (IOException e) {
+                System.err.println("Rebuilding pattern database: " + e.getMessage());
+            }
+        }
+        PatternDatabase database = PatternDatabase.buildParallel(dimensions, tiles);
+
+        try {
+            write(database, file);
+        } catch (IOException e) {
+            System.err.println("Could not save pattern database to " + file + ": " + e.getMessage());
+        }
+        return database;
+    }
+
+    /**
+     * @param dimensions: the board dimensions.
+     * @param tiles: the pattern tiles.
+     * @return a file name identifying the pattern, e.g. "pdb-4x4-2-3-4.tpdb".
+     */
+    public static String fileName(int dimensions, int[] tiles) {
+        StringBuilder name = new StringBuilder("pdb-").append(dimensions).append('x').append(dimensions);
+
+        for (int tile : tiles) {
+            name.append('-').append(tile);
+        }
+        return name.append(".tpdb").toString();
+    }
+
+    /**
+     * @return CRC32 of the remaining bytes of the table.
+     */
+    static long checksum(ByteBuffer table) {
+        CRC32 crc = new CRC32();
+        crc.update(table.duplicate());
+        return crc.getValue();
+    }
+
+    private static int headerSize(int k) {
+        int size = 36 + 4 * k;
+        return (size + HEADER_ALIGNMENT - 1) / HEADER_ALIGNMENT * HEADER_ALIGNMENT;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new StaleDatabaseException("Pattern database header is truncated");
+            }
+        }
+    }
+
+    /**
+     * Thrown when a file exists but can't be used as the database asked for.
+     */
+    public static class StaleDatabaseException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public StaleDatabaseException(String message) {
+            super(message);
+        }
+    }
+}
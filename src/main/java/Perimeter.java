@@ -0,0 +1,149 @@
+import java.util.ArrayList;
+
+/**
+ * Every board within a fixed number of moves (the radius) of the goal,
+ * with its exact distance, found by one breadth-first search back from
+ * the goal. A search that reaches a board on the table knows the rest of
+ * its path, and a board missing from the table is more than the radius
+ * away, whatever the heuristic says.
+ *
+ * One table per board size is built on first use and shared by every
+ * search in the JVM; tables are read only once built. Only boards up to
+ * TilePuzzleNode.PACKED_DIMENSIONS, whose state fits in one long, are
+ * covered.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class Perimeter {
+
+    /**
+     * Radius of the shared tables. The number of boards at each depth
+     * grows about twofold, so 16 moves is ~250,000 boards and ~6 MB on
+     * 4x4, built in well under a second.
+     */
+    public static final int DEFAULT_RADIUS = 16;
+
+    /**
+     * Returned by distance() for boards further than the radius away.
+     */
+    public static final int OUTSIDE = LongIntHashMap.NOT_FOUND;
+
+    /**
+     * SHARED[n] is the table for n x n boards, once built.
+     */
+    private static final Perimeter[] SHARED = new Perimeter[TilePuzzleNode.PACKED_DIMENSIONS + 1];
+
+    private final int dimensions;
+    private final int radius;
+
+    /**
+     * {packed state : moves from the goal}.
+     */
+    private final LongIntHashMap distances;
+
+    /**
+     * Builds a table by breadth-first search back from the goal.
+     *
+     * @param dimensions: the dimensions of the board.
+     * @param radius: most moves from the goal to cover.
+     */
+    public Perimeter(int dimensions, int radius) {
+        if (dimensions > TilePuzzleNode.PACKED_DIMENSIONS) {
+            throw new IllegalArgumentException("Perimeters only cover boards up to "
+                    + TilePuzzleNode.PACKED_DIMENSIONS + "x" + TilePuzzleNode.PACKED_DIMENSIONS);
+        }
+        this.dimensions = dimensions;
+        this.radius = radius;
+        this.distances = new LongIntHashMap(1 << 10);
+
+        ArrayList<TilePuzzleNode> layer = new ArrayList<>();
+        TilePuzzleNode goal = new TilePuzzleNode(TilePuzzleNode.goalState(dimensions),
+                dimensions * dimensions - 1, dimensions);
+        layer.add(goal);
+        distances.put(goal.getPackedState(), 0);
+
+        for (int depth = 1; depth <= radius && !(layer.isEmpty()); depth++) {
+            ArrayList<TilePuzzleNode> next = new ArrayList<>(layer.size() * 2);
+
+            for (TilePuzzleNode node : layer) {
+                for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+                    TilePuzzleNode child = node.slideBlank(move);
+
+                    if (child != null && distances.get(child.getPackedState()) == OUTSIDE) {
+                        distances.put(child.getPackedState(), depth);
+                        next.add(child);
+                    }
+                }
+            }
+            layer = next;
+        }
+    }
+
+    /**
+     * @param dimensions: the dimensions of the board.
+     * @return the shared table of radius DEFAULT_RADIUS, built on first use.
+     */
+    public static synchronized Perimeter forDimensions(int dimensions) {
+        if (SHARED[dimensions] == null) {
+            SHARED[dimensions] = new Perimeter(dimensions, DEFAULT_RADIUS);
+        }
+        return SHARED[dimensions];
+    }
+
+    /**
+     * @param packedState: a packed board state.
+     * @return moves from the board to the goal, or OUTSIDE if that is
+     * more than the radius.
+     */
+    public int distance(long packedState) {
+        return distances.get(packedState);
+    }
+
+    /**
+     * Takes a board on the table to the goal, in place, one move closer
+     * at a time.
+     *
+     * @param node: a board within the radius; left at the goal.
+     * @param moves: filled with the moves taken, from index from on.
+     * @param from: index of the first move.
+     */
+    void walkToGoal(TilePuzzleNode node, int[] moves, int from) {
+        int d = distance(node.getPackedState());
+
+        for (int i = from; d > 0; i++) {
+            for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+                if (node.applyMove(move)) {
+                    if (distance(node.getPackedState()) == d - 1) {
+                        moves[i] = move;
+                        d--;
+                        break;
+                    }
+                    node.applyMove(move ^ 1);
+                }
+            }
+        }
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return number of boards within the radius.
+     */
+    public int size() {
+        return distances.size();
+    }
+
+    /**
+     * @return bytes held by the table.
+     */
+    public long memoryBytes() {
+        return distances.memoryBytes();
+    }
+}
@@ -0,0 +1,205 @@
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Draws solvable boards uniformly at random, fast enough for load tests.
+ *
+ * Each board is a Fisher-Yates shuffle of the cells. Exactly half of all
+ * shuffles are solvable, and swapping the tiles in the first two cells
+ * that don't hold the blank flips that, without moving the blank. The
+ * swap pairs every unsolvable board with one solvable board, so fixing
+ * the unsolvable half with it keeps the draw uniform and never retries.
+ *
+ * Board i of a generator depends only on its seed and i, so a seed
+ * always gives the same boards, in the same order, whether they are
+ * drawn one at a time or from a parallel stream. Each board draws from
+ * its own generator, seeded by a hash of the seed and i.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class PuzzleGenerator {
+
+    /**
+     * Odd constant spreading board indexes over the seed space (the
+     * golden ratio). SplittableRandom steps its own state by the same
+     * constant, so the sum is hashed before use: unhashed, board i + 1
+     * would draw what board i draws, one draw later.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final int dimensions;
+    private final long seed;
+
+    /**
+     * Index of the board next() returns next.
+     */
+    private long index;
+
+    /**
+     * @param dimensions: 3, 4 or 5.
+     */
+    public PuzzleGenerator(int dimensions) {
+        this(dimensions, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * @param dimensions: 3, 4 or 5.
+     * @param seed: seed of the boards drawn.
+     */
+    public PuzzleGenerator(int dimensions, long seed) {
+        if (dimensions < 3 || dimensions > TilePuzzleNode.MAX_DIMENSIONS) {
+            throw new IllegalArgumentException("Sorry puzzles must be 3x3, 4x4 or 5x5");
+        }
+        this.dimensions = dimensions;
+        this.seed = seed;
+    }
+
+    /**
+     * Not thread-safe; give each thread its own generator, or use stream.
+     *
+     * @return the next board.
+     */
+    public TilePuzzleNode next() {
+        return board(index++);
+    }
+
+    /**
+     * @param count: number of boards.
+     * @return the first count boards of this seed (as next() would
+     * return them on a fresh generator); parallel() splits the work
+     * without changing the boards or their order.
+     */
+    public Stream<TilePuzzleNode> stream(long count) {
+        return LongStream.range(0, count).mapToObj(this::board);
+    }
+
+    /**
+     * @param i: index of a board.
+     * @return board i of this seed.
+     */
+    public TilePuzzleNode board(long i) {
+        SplittableRandom random = random(seed, i);
+        int cells = dimensions * dimensions;
+        int[] board = new int[cells];
+
+        for (int cell = 0; cell < cells; cell++) {
+            board[cell] = cell;
+        }
+        for (int cell = cells - 1; cell > 0; cell--) {
+            int other = random.nextInt(cell + 1);
+            int tile = board[cell];
+            board[cell] = board[other];
+            board[other] = tile;
+        }
+        int blank = 0;
+        while (board[blank] != 0) {
+            blank++;
+        }
+        if (!(isSolvable(board, blank, dimensions))) {
+            int first = blank == 0 ? 1 : 0;
+            int second = blank <= 1 ? 2 : 1;
+            int tile = board[first];
+            board[first] = board[second];
+            board[second] = tile;
+        }
+        return pack(board, blank, dimensions);
+    }
+
+    /**
+     * @param seed: seed of a generator.
+     * @param i: index of a board.
+     * @return the random numbers board i of the seed is drawn with.
+     */
+    static SplittableRandom random(long seed, long i) {
+        return new SplittableRandom(mix64(seed + i * GOLDEN_GAMMA));
+    }
+
+    /**
+     * Stafford's variant 13 of the MurmurHash3 64-bit finalizer, as
+     * SplittableRandom uses: every input bit affects every output bit.
+     *
+     * @param z: a value to hash.
+     * @return its hash.
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A board is solvable if and only if its cells, as a permutation of
+     * the goal's (the blank counting as the last tile), have the same
+     * parity as the number of moves from the blank to its goal cell.
+     * Permutation parity comes from the cycle count, in one pass.
+     *
+     * @param board: tiles by cell, the blank as 0.
+     * @param blank: cell index of the blank.
+     * @param n: the dimensions of the board.
+     * @return true if the board can reach the goal.
+     */
+    static boolean isSolvable(int[] board, int blank, int n) {
+        int cells = n * n;
+        long visited = 0;
+        int cycles = 0;
+
+        for (int cell = 0; cell < cells; cell++) {
+            if ((visited & (1L << cell)) != 0) {
+                continue;
+            }
+            cycles++;
+
+            // Follow the cycle: the tile in a cell belongs in cell tile - 1
+            // (the blank in the last cell).
+            for (int i = cell; (visited & (1L << i)) == 0; ) {
+                visited |= 1L << i;
+                i = board[i] == 0 ? cells - 1 : board[i] - 1;
+            }
+        }
+        int permutationParity = (cells - cycles) & 1;
+        int blankDistance = (n - 1 - blank / n) + (n - 1 - blank % n);
+        return permutationParity == (blankDistance & 1);
+    }
+
+    /**
+     * @param board: tiles by cell, the blank as 0.
+     * @param blank: cell index of the blank.
+     * @param n: the dimensions of the board.
+     * @return the board as a node.
+     */
+    private static TilePuzzleNode pack(int[] board, int blank, int n) {
+        long low = 0;
+        long high = 0;
+
+        if (n <= TilePuzzleNode.PACKED_DIMENSIONS) {
+            for (int cell = 0; cell < board.length; cell++) {
+                low |= (long) board[cell] << (TilePuzzleNode.BITS_PER_CELL * cell);
+            }
+        } else {
+            for (int cell = 0; cell < board.length; cell++) {
+                int bit = TilePuzzleNode.WIDE_BITS_PER_CELL * cell;
+                long tile = board[cell];
+
+                if (bit >= Long.SIZE) {
+                    high |= tile << (bit - Long.SIZE);
+                } else {
+                    low |= tile << bit;
+                    if (bit + TilePuzzleNode.WIDE_BITS_PER_CELL > Long.SIZE) {
+                        high |= tile >>> (Long.SIZE - bit);
+                    }
+                }
+            }
+        }
+        return new TilePuzzleNode(low, high, blank, n);
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+}
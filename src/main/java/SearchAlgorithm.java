@@ -0,0 +1,105 @@
+import java.util.ArrayList;
+
+/**
+ * A search engine that finds a shortest path to the goal. Engines keep
+ * no state between calls to solve, so one engine (and the heuristic
+ * tables it holds) can be shared by several threads.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public interface SearchAlgorithm {
+
+    /**
+     * @param start: the start state (puzzle)
+     * @return the path from the start state to the goal state, with
+     * the goal first.
+     */
+    public ArrayList<TilePuzzleNode> solve(TilePuzzleNode start);
+
+    /**
+     * Engines that can't be cut short run to the end, ignoring the limit.
+     *
+     * @param start: the start state (puzzle)
+     * @param limit: limits on the search.
+     * @return how the search ended, with the path if one was found and
+     * a lower bound on the optimal cost.
+     */
+    default SearchResult solve(TilePuzzleNode start, SearchLimit limit) {
+        ArrayList<TilePuzzleNode> path = solve(start);
+        return new SearchResult(path, path.size() - 1, null);
+    }
+
+    /**
+     * Engines available to the batch solver.
+     */
+    enum Type {
+
+        /**
+         * A* with a bucketed open list; fast, but memory grows with the
+         * search, so best kept to 3x3 and easy 4x4 puzzles.
+         */
+        A_STAR {
+            @Override
+            public SearchAlgorithm create(Heuristic heuristic) {
+                return new AStar(heuristic);
+            }
+        },
+
+        /**
+         * Bidirectional A* (MM); memory grows like A*'s. Needs an
+         * InvertibleHeuristic, so not pattern databases.
+         */
+        BIDIRECTIONAL_A_STAR {
+            @Override
+            public SearchAlgorithm create(Heuristic heuristic) {
+                if (!(accepts(heuristic))) {
+                    throw new IllegalArgumentException("Bidirectional A* needs an InvertibleHeuristic, not "
+                            + heuristic.getClass().getSimpleName());
+                }
+                return new BidirectionalAStar((InvertibleHeuristic) heuristic);
+            }
+
+            @Override
+            public boolean accepts(Heuristic heuristic) {
+                return heuristic instanceof InvertibleHeuristic;
+            }
+        },
+
+        /**
+         * IDA* in the calling thread.
+         */
+        IDA_STAR {
+            @Override
+            public SearchAlgorithm create(Heuristic heuristic) {
+                return new IterativeDeepeningAStar(heuristic);
+            }
+        },
+
+        /**
+         * IDA* split across the common ForkJoinPool.
+         */
+        PARALLEL_IDA_STAR {
+            @Override
+            public SearchAlgorithm create(Heuristic heuristic) {
+                return new ParallelIterativeDeepeningAStar(heuristic);
+            }
+        };
+
+        /**
+         * @param heuristic: search heuristic of choice.
+         * @return a new engine using the heuristic.
+         * @throws IllegalArgumentException if the engine can't use the
+         * heuristic (see accepts).
+         */
+        public abstract SearchAlgorithm create(Heuristic heuristic);
+
+        /**
+         * @param heuristic: a heuristic.
+         * @return true if create takes the heuristic.
+         */
+        public boolean accepts(Heuristic heuristic) {
+            return true;
+        }
+    }
+}
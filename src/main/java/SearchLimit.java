@@ -0,0 +1,160 @@
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits on one search: wall-clock time, nodes expanded, memory held by
+ * the search and a cancel token. Limits are immutable; each with method
+ * returns a copy with one more limit set.
+ *
+ * Engines only look at the limits every CHECK_INTERVAL expansions, so
+ * they cost nothing per node and may be overrun by up to that many
+ * expansions. Interrupting the searching thread (or, for parallel IDA*,
+ * the thread that started the search) also stops it, so even a search
+ * with no limits can be abandoned.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class SearchLimit {
+
+    /**
+     * No limits; the search runs until it finishes or is interrupted.
+     */
+    public static final SearchLimit NONE = new SearchLimit(Long.MAX_VALUE, Long.MAX_VALUE,
+            Long.MAX_VALUE, null);
+
+    /**
+     * Engines check the limits once per this many expansions.
+     */
+    public static final int CHECK_INTERVAL = 1 << 10;
+
+    private final long timeNanos;
+    private final long maxExpanded;
+    private final long maxMemoryBytes;
+    private final CancelToken cancelToken;
+
+    private SearchLimit(long timeNanos, long maxExpanded, long maxMemoryBytes,
+                        CancelToken cancelToken) {
+        this.timeNanos = timeNanos;
+        this.maxExpanded = maxExpanded;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.cancelToken = cancelToken;
+    }
+
+    /**
+     * @param time: wall-clock time allowed, from the start of the search.
+     * @return these limits with a time limit.
+     */
+    public SearchLimit withTime(Duration time) {
+        return new SearchLimit(time.toNanos(), maxExpanded, maxMemoryBytes, cancelToken);
+    }
+
+    /**
+     * @param maxExpanded: most boards to expand.
+     * @return these limits with a node limit.
+     */
+    public SearchLimit withMaxExpanded(long maxExpanded) {
+        return new SearchLimit(timeNanos, maxExpanded, maxMemoryBytes, cancelToken);
+    }
+
+    /**
+     * @param maxMemoryBytes: most bytes the search may hold, as estimated
+     *                      by SearchStats.getMemoryBytes.
+     * @return these limits with a memory limit.
+     */
+    public SearchLimit withMaxMemory(long maxMemoryBytes) {
+        return new SearchLimit(timeNanos, maxExpanded, maxMemoryBytes, cancelToken);
+    }
+
+    /**
+     * @param cancelToken: token another thread may cancel the search with.
+     * @return these limits with a cancel token.
+     */
+    public SearchLimit withCancelToken(CancelToken cancelToken) {
+        return new SearchLimit(timeNanos, maxExpanded, maxMemoryBytes, cancelToken);
+    }
+
+    /**
+     * Starts the clock for one search.
+     *
+     * @return a monitor for the search to check the limits with.
+     */
+    Monitor start() {
+        return new Monitor(System.nanoTime());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("time %s, expanded %s, memory %s%s",
+                timeNanos == Long.MAX_VALUE ? "-" : (timeNanos / 1000000) + " ms",
+                maxExpanded == Long.MAX_VALUE ? "-" : String.valueOf(maxExpanded),
+                maxMemoryBytes == Long.MAX_VALUE ? "-" : (maxMemoryBytes >> 20) + " MB",
+                cancelToken == null ? "" : ", cancellable");
+    }
+
+    /**
+     * Lets another thread stop a search. One token may be shared by
+     * several searches; once cancelled it stays cancelled.
+     */
+    public static class CancelToken {
+        private volatile boolean cancelled;
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * The limits of one running search. Safe to check from several
+     * threads at once.
+     */
+    class Monitor {
+
+        /**
+         * System.nanoTime the search must stop by.
+         */
+        private final long deadline;
+
+        /**
+         * Expansions reported so far, by every thread.
+         */
+        private final AtomicLong expanded = new AtomicLong();
+
+        private final Thread owner = Thread.currentThread();
+
+        Monitor(long startTime) {
+            this.deadline = timeNanos == Long.MAX_VALUE || startTime + timeNanos < startTime
+                    ? Long.MAX_VALUE : startTime + timeNanos;
+        }
+
+        /**
+         * Called by a search every CHECK_INTERVAL or so expansions.
+         *
+         * @param expansions: boards expanded since this thread last checked.
+         * @param memoryBytes: estimated bytes held by the search.
+         * @return why the search must stop, or null if it may go on.
+         */
+        SearchResult.Status check(long expansions, long memoryBytes) {
+            long total = expanded.addAndGet(expansions);
+
+            if ((cancelToken != null && cancelToken.isCancelled()) || owner.isInterrupted()
+                    || Thread.currentThread().isInterrupted()) {
+                return SearchResult.Status.CANCELLED;
+            }
+            if (total >= maxExpanded) {
+                return SearchResult.Status.NODE_LIMIT;
+            }
+            if (memoryBytes > maxMemoryBytes) {
+                return SearchResult.Status.MEMORY_LIMIT;
+            }
+            if (deadline != Long.MAX_VALUE && System.nanoTime() > deadline) {
+                return SearchResult.Status.TIME_LIMIT;
+            }
+            return null;
+        }
+    }
+}
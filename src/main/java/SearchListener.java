@@ -0,0 +1,49 @@
+/**
+ * Progress callbacks from a search, all optional. Called in the
+ * searching thread (for parallel IDA*, the thread that started the
+ * search) between iterations, never per node.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public interface SearchListener {
+
+    /**
+     * Listener that ignores everything.
+     */
+    SearchListener NONE = new SearchListener() {};
+
+    /**
+     * An IDA* iteration finished, whether or not it reached the goal.
+     *
+     * @param iteration: the bound and work done under it.
+     * @param stats: totals so far.
+     */
+    default void iterationFinished(SearchStats.Iteration iteration, SearchStats stats) {
+    }
+
+    /**
+     * Another SearchStats.PROGRESS_INTERVAL A* expansions have been made.
+     *
+     * @param stats: totals so far.
+     */
+    default void progress(SearchStats stats) {
+    }
+
+    /**
+     * An anytime search found a shorter path, or proved a higher lower
+     * bound on the optimal cost.
+     *
+     * @param result: the best path so far and its bound.
+     */
+    default void solutionImproved(SearchResult result) {
+    }
+
+    /**
+     * The search finished, with a solution or not.
+     *
+     * @param stats: final totals.
+     */
+    default void searchFinished(SearchStats stats) {
+    }
+}
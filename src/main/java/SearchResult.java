@@ -0,0 +1,153 @@
+import java.util.ArrayList;
+
+/**
+ * A path found by a search together with a proven lower bound on the
+ * optimal cost, so a caller knows how far from optimal the path may be.
+ * A search cut off by its SearchLimit still has a result: the reason it
+ * stopped, the best path found so far (if any) and the best lower bound.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class SearchResult {
+
+    /**
+     * How a search ended.
+     */
+    public enum Status {
+        /**
+         * The search ran to the end.
+         */
+        SOLVED,
+
+        /**
+         * Cut off by SearchLimit.withTime.
+         */
+        TIME_LIMIT,
+
+        /**
+         * Cut off by SearchLimit.withMaxExpanded.
+         */
+        NODE_LIMIT,
+
+        /**
+         * Cut off by SearchLimit.withMaxMemory.
+         */
+        MEMORY_LIMIT,
+
+        /**
+         * Cancelled through a cancel token, or the thread was interrupted.
+         */
+        CANCELLED
+    }
+
+    private final Status status;
+
+    private final ArrayList<TilePuzzleNode> path;
+
+    private final int lowerBound;
+
+    private final SearchStats stats;
+
+    /**
+     * @param path: the path from the goal back to the start state.
+     * @param lowerBound: no path to the goal is shorter than this.
+     * @param stats: stats of the search that found it.
+     */
+    SearchResult(ArrayList<TilePuzzleNode> path, int lowerBound, SearchStats stats) {
+        this(Status.SOLVED, path, lowerBound, stats);
+    }
+
+    /**
+     * @param status: how the search ended.
+     * @param path: the best path found, or null if there is none.
+     * @param lowerBound: no path to the goal is shorter than this.
+     * @param stats: stats of the search.
+     */
+    SearchResult(Status status, ArrayList<TilePuzzleNode> path, int lowerBound,
+                 SearchStats stats) {
+        this.status = status;
+        this.path = path;
+        this.lowerBound = lowerBound;
+        this.stats = stats;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the path from the goal state back to the start state, or
+     * null if the search was cut off before finding one.
+     */
+    public ArrayList<TilePuzzleNode> getPath() {
+        return path;
+    }
+
+    /**
+     * @return true if there is a path.
+     */
+    public boolean hasPath() {
+        return path != null;
+    }
+
+    /**
+     * @return moves in the path, or -1 if there is none.
+     */
+    public int getCost() {
+        return path == null ? -1 : path.size() - 1;
+    }
+
+    /**
+     * @return the proven lower bound on the optimal number of moves.
+     */
+    public int getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * @return cost / lower bound: the path is at most this many times
+     * the optimal length (1.0 means proven optimal); infinite if there
+     * is no path, or a bound of 0 proves nothing about a longer one.
+     */
+    public double getSuboptimality() {
+        if (path == null || (lowerBound == 0 && getCost() > 0)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return lowerBound == 0 ? 1.0 : (double) getCost() / lowerBound;
+    }
+
+    /**
+     * @return true if the path is proven to be a shortest one.
+     */
+    public boolean isOptimal() {
+        return path != null && getCost() == lowerBound;
+    }
+
+    /**
+     * @return the path.
+     * @throws IllegalStateException if the search was cut off before
+     * finding one.
+     */
+    ArrayList<TilePuzzleNode> requirePath() {
+        if (path == null) {
+            throw new IllegalStateException("Search stopped (" + status + ") with optimal >= "
+                    + lowerBound);
+        }
+        return path;
+    }
+
+    public SearchStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        if (path == null) {
+            return String.format("%s, no path, optimal >= %d", status, lowerBound);
+        }
+        return String.format("%s%d moves, optimal >= %d (within %.3f)",
+                status == Status.SOLVED ? "" : status + ", ", getCost(), lowerBound,
+                getSuboptimality());
+    }
+}
@@ -0,0 +1,184 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Counters for one search. The engines count into local variables and
+ * only copy them here at iteration boundaries (A*: every
+ * PROGRESS_INTERVAL expansions), so collecting them costs next to
+ * nothing; once a search has finished its stats are no longer changed.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class SearchStats {
+
+    /**
+     * A* reports progress after this many expansions.
+     */
+    public static final int PROGRESS_INTERVAL = 1 << 16;
+
+    private final String algorithm;
+
+    long generated;
+    long expanded;
+    long duplicates;
+    int peakOpen;
+    int peakClosed;
+    int maxDepth;
+    long memoryBytes;
+    long storedNodes;
+    long elapsedNanos;
+    int solutionLength = -1;
+
+    private final ArrayList<Iteration> iterations = new ArrayList<>();
+
+    /**
+     * @param algorithm: name of the engine, for reports.
+     */
+    SearchStats(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    void addIteration(Iteration iteration) {
+        iterations.add(iteration);
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return children created (boards evaluated by the heuristic).
+     */
+    public long getGenerated() {
+        return generated;
+    }
+
+    /**
+     * @return boards whose children were generated.
+     */
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * @return children thrown away without being searched: A* children
+     * already reached at no greater depth, IDA* moves that would undo
+     * the previous one.
+     */
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return IDA* f-score iterations, in order; empty for A*.
+     */
+    public List<Iteration> getIterations() {
+        return Collections.unmodifiableList(iterations);
+    }
+
+    /**
+     * @return largest open list (A*), or 0 for IDA*.
+     */
+    public int getPeakOpen() {
+        return peakOpen;
+    }
+
+    /**
+     * @return largest closed set (A*), or 0 for IDA*.
+     */
+    public int getPeakClosed() {
+        return peakClosed;
+    }
+
+    /**
+     * @return deepest board reached.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return estimated bytes held by the search at its end.
+     */
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * @return estimated bytes per stored board; A* stores every board it
+     * reaches, IDA* only the current path.
+     */
+    public double getBytesPerNode() {
+        return storedNodes == 0 ? 0 : (double) memoryBytes / storedNodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return boards generated per second.
+     */
+    public double getNodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : generated / (elapsedNanos / 1e9);
+    }
+
+    /**
+     * @return moves in the solution, or -1 if the search has not
+     * finished (or failed).
+     */
+    public int getSolutionLength() {
+        return solutionLength;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d moves, %d generated, %d expanded, %d duplicates, "
+                        + "%d iteration(s), peak open %d, peak closed %d, %.0f bytes/node, "
+                        + "%.2f M nodes/s in %.1f ms",
+                algorithm, solutionLength, generated, expanded, duplicates, iterations.size(),
+                peakOpen, peakClosed, getBytesPerNode(), getNodesPerSecond() / 1e6,
+                elapsedNanos / 1e6);
+    }
+
+    /**
+     * One IDA* iteration: its bound and the work done under it.
+     */
+    public static class Iteration {
+        private final int bound;
+        private final long generated;
+        private final long expanded;
+        private final long elapsedNanos;
+
+        Iteration(int bound, long generated, long expanded, long elapsedNanos) {
+            this.bound = bound;
+            this.generated = generated;
+            this.expanded = expanded;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int getBound() {
+            return bound;
+        }
+
+        public long getGenerated() {
+            return generated;
+        }
+
+        public long getExpanded() {
+            return expanded;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("bound %d: %d generated, %d expanded in %.1f ms",
+                    bound, generated, expanded, elapsedNanos / 1e6);
+        }
+    }
+}
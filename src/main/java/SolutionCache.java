@@ -0,0 +1,304 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, thread-safe cache of optimal solutions, keyed by packed board
+ * state and evicting the least recently used board.
+ *
+ * Every board on an optimal path has the rest of that path as its own
+ * optimal solution, so storing a path caches all of its suffixes; they
+ * share one array of moves, each board keeping only an offset into it.
+ *
+ * Boards are looked up in a canonical form under the one symmetry that
+ * keeps the goal in place: reflecting the board across its main diagonal
+ * and relabelling each tile as the tile whose home is the reflection of
+ * its own. A board and its reflection have the same solution with up and
+ * left (and down and right) swapped, so they share one entry.
+ *
+ * Only boards up to TilePuzzleNode.PACKED_DIMENSIONS, whose state fits
+ * in one long, are cached; larger boards are always misses.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class SolutionCache {
+
+    /**
+     * TRANSPOSED_MOVE[move] is the move mirrored across the main diagonal.
+     */
+    private static final int[] TRANSPOSED_MOVE = {
+            TilePuzzleNode.LEFT, TilePuzzleNode.RIGHT, TilePuzzleNode.DOWN, TilePuzzleNode.UP
+    };
+
+    /**
+     * Rough heap cost of one map entry: the LinkedHashMap entry, its
+     * boxed key and the Suffix.
+     */
+    private static final int ENTRY_BYTES = 40 + 16 + 24;
+
+    /**
+     * Rough heap cost of a move array apart from the moves themselves.
+     */
+    private static final int ARRAY_BYTES = 16 + 24;
+
+    private final int maxEntries;
+
+    /**
+     * {canonical packed state : its solution}, in access order; guarded
+     * by this.
+     */
+    private final LinkedHashMap<Long, Suffix> entries;
+
+    private long hits;
+    private long misses;
+    private long arrayBytes;
+
+    /**
+     * @param maxEntries: most boards to hold; least recently used boards
+     *                  are dropped beyond that.
+     */
+    public SolutionCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache must hold at least one board");
+        }
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Suffix> eldest) {
+                if (size() <= SolutionCache.this.maxEntries) {
+                    return false;
+                }
+                release(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param node: a board.
+     * @return moves (indexes into MOVES) taking the board to the goal,
+     * or null if the board isn't cached.
+     */
+    public int[] lookup(TilePuzzleNode node) {
+        int n = node.getDimensions();
+        if (n > TilePuzzleNode.PACKED_DIMENSIONS) {
+            synchronized (this) {
+                misses++;
+            }
+            return null;
+        }
+        long state = node.getPackedState();
+        long transposed = transpose(state, n);
+        boolean flip = Long.compareUnsigned(transposed, state) < 0;
+        Suffix suffix;
+
+        synchronized (this) {
+            suffix = entries.get(flip ? transposed : state);
+            if (suffix == null) {
+                misses++;
+                return null;
+            }
+            hits++;
+        }
+        byte[] moves = suffix.path.moves;
+        int[] result = new int[moves.length - suffix.offset];
+
+        // The stored moves solve the canonical board; mirror them back
+        // if this board is the reflection.
+        for (int i = 0; i < result.length; i++) {
+            int move = moves[suffix.offset + i];
+            result[i] = flip ? TRANSPOSED_MOVE[move] : move;
+        }
+        return result;
+    }
+
+    /**
+     * @param node: a board.
+     * @return the path from the goal back to the board, as returned by
+     * the search engines, or null if the board isn't cached.
+     */
+    public ArrayList<TilePuzzleNode> get(TilePuzzleNode node) {
+        int[] moves = lookup(node);
+
+        if (moves == null) {
+            return null;
+        }
+        ArrayList<TilePuzzleNode> path = new ArrayList<>(moves.length + 1);
+        TilePuzzleNode current = new TilePuzzleNode(node.getPackedState(), node.getBlank(),
+                node.getDimensions());
+        path.add(current);
+
+        for (int move : moves) {
+            current = current.slideBlank(move);
+            path.add(current);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Caches an optimal path and every suffix of it. Boards already
+     * cached keep their entry.
+     *
+     * @param path: an optimal path from the goal back to the start, as
+     *            returned by the search engines.
+     */
+    public void put(ArrayList<TilePuzzleNode> path) {
+        int length = path.size() - 1;
+        if (length < 1) {
+            return;
+        }
+        int n = path.get(0).getDimensions();
+        if (n > TilePuzzleNode.PACKED_DIMENSIONS) {
+            return;
+        }
+
+        // Moves from the start (last in the path) to the goal (first).
+        byte[] moves = new byte[length];
+        for (int i = 0; i < length; i++) {
+            moves[i] = (byte) moveBetween(path.get(length - i), path.get(length - i - 1), n);
+        }
+        Path forward = new Path(moves);
+        Path mirrored = null;
+
+        synchronized (this) {
+            for (int i = 0; i < length; i++) {
+                long state = path.get(length - i).getPackedState();
+                long transposed = transpose(state, n);
+                boolean flip = Long.compareUnsigned(transposed, state) < 0;
+                Long key = flip ? transposed : state;
+
+                if (entries.containsKey(key)) {
+                    continue;
+                }
+                if (flip && mirrored == null) {
+                    byte[] mirroredMoves = new byte[length];
+                    for (int j = 0; j < length; j++) {
+                        mirroredMoves[j] = (byte) TRANSPOSED_MOVE[moves[j]];
+                    }
+                    mirrored = new Path(mirroredMoves);
+                }
+                Path shared = flip ? mirrored : forward;
+                if (shared.refs++ == 0) {
+                    arrayBytes += ARRAY_BYTES + length;
+                }
+                entries.put(key, new Suffix(shared, i));
+            }
+        }
+    }
+
+    /**
+     * @return number of boards cached.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return fraction of lookups that found the board.
+     */
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return estimated bytes held by the cache.
+     */
+    public synchronized long memoryBytes() {
+        return (long) entries.size() * ENTRY_BYTES + arrayBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d boards, %.1f%% hits (%d of %d), ~%d KB",
+                entries.size(), 100 * getHitRate(), hits, hits + misses, memoryBytes() / 1024);
+    }
+
+    /**
+     * Drops an evicted board's claim on its move array.
+     */
+    private void release(Suffix suffix) {
+        if (--suffix.path.refs == 0) {
+            arrayBytes -= ARRAY_BYTES + suffix.path.moves.length;
+        }
+    }
+
+    /**
+     * Reflects a board across its main diagonal and relabels every tile
+     * as the tile whose home is the reflection of its own; the goal maps
+     * to itself.
+     *
+     * @param state: a packed board state.
+     * @param n: the dimensions of the board.
+     * @return the packed reflected state.
+     */
+    static long transpose(long state, int n) {
+        long transposed = 0;
+
+        for (int row = 0; row < n; row++) {
+            for (int col = 0; col < n; col++) {
+                int tile = TilePuzzleNode.tileAt(state, row * n + col);
+
+                if (tile != 0) {
+                    int home = tile - 1;
+                    int mirrored = (home % n) * n + home / n + 1;
+                    transposed |= (long) mirrored << (TilePuzzleNode.BITS_PER_CELL * (col * n + row));
+                }
+            }
+        }
+        return transposed;
+    }
+
+    /**
+     * @return the move taking the blank of one board to that of the next.
+     */
+    private static int moveBetween(TilePuzzleNode from, TilePuzzleNode to, int n) {
+        for (int move = 0; move < TilePuzzleNode.NUMBER_OF_MOVES; move++) {
+            if (TilePuzzleNode.targetCell(from.getBlank(), move, n) == to.getBlank()) {
+                return move;
+            }
+        }
+        throw new IllegalArgumentException("Path has a step that isn't a single move");
+    }
+
+    /**
+     * Moves of one cached path, shared by all of its suffixes; they solve
+     * the path's boards in their canonical form.
+     */
+    private static class Path {
+        private final byte[] moves;
+
+        /**
+         * Number of cached boards using the array; guarded by the cache.
+         */
+        private int refs;
+
+        Path(byte[] moves) {
+            this.moves = moves;
+        }
+    }
+
+    /**
+     * A cached board's solution: the moves of a path from an offset on.
+     */
+    private static class Suffix {
+        private final Path path;
+        private final int offset;
+
+        Suffix(Path path, int offset) {
+            this.path = path;
+            this.offset = offset;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Class used for puzzle generation and to gauge the
@@ -34,63 +35,40 @@ public class Solver {
     }
 
     /**
-     * Method randomly generates a solvable N-tile puzzle.
+     * Method randomly generates a solvable N-tile puzzle, every
+     * solvable board being equally likely (see PuzzleGenerator).
      * 
+     * @param dimensions: 3, 4 or 5.
      * @return TilePuzzleNode.
      */
     public static TilePuzzleNode generatePuzzle(int dimensions) {
-        
-        if (dimensions < 3 || dimensions > 4) {
-            throw new IllegalArgumentException("Sorry puzzles must be either 3x3 or 4x4");
-        }
-        
-        // Create and populate array.
-        int[][] arr = new int[dimensions][dimensions];
-        int num = 0;
-        for (int i = 0; i < arr.length; i++) {
-            for (int j = 0; j < arr[i].length; j++) {
-                arr[i][j] = num++;
-            }
-        }
-        // Above populated array is actually already solvable; we
-        // do an initial shuffle to avoid method outputting the
-        // same state each time.
-        shuffleBoard(arr);
-        
-        while (!(TilePuzzleNode.isSolvable(arr, 3))) {
-            shuffleBoard(arr);
-        }
-        TilePuzzleNode result = new TilePuzzleNode(arr);
-        return result;
+        return new PuzzleGenerator(dimensions).next();
     }
 
     /**
-     * Modified fisher-Yates shuffle for 2D array.
+     * Fisher-Yates shuffle of a 2D array, read row by row as one
+     * array, so every arrangement is equally likely.
      * 
      * @param arr: a puzzle board.
      */
     public static void shuffleBoard(int[][] arr) {
-        Random rand = new Random();
-        
-        int n = arr.length -1;
-            for (int i = n; i >= 0; i--) {
-                for (int j = n; j >= 0; j--) {
-                    
-                    int xPos = rand.nextInt(i + 1);
-                    int yPos = rand.nextInt(j + 1);
-                    
-                    // Swap
-                    int temp = arr[i][j];
-                    arr[i][j] = arr[xPos][yPos];
-                    arr[xPos][yPos] = temp;
-                }
-            }
+        Random rand = ThreadLocalRandom.current();
+        int n = arr.length;
+
+        for (int i = n * n - 1; i > 0; i--) {
+            int k = rand.nextInt(i + 1);
+
+            // Swap
+            int temp = arr[i / n][i % n];
+            arr[i / n][i % n] = arr[k / n][k % n];
+            arr[k / n][k % n] = temp;
+        }
     }
     
     public static void main(String[] args) {
         
         IterativeDeepeningAStar IDAStar = new IterativeDeepeningAStar(new ManhattanWithLinearConflict());
         TilePuzzleNode test = generatePuzzle(3);
-        printPath(IDAStar.IterativeDeepeningSearch(test));
+        printPath(new EightPuzzleOracle(IDAStar).solve(test));
     }
 }
@@ -13,16 +13,55 @@ public class TilePuzzleNode {
     private int dimensions;
 
     /**
-     *  Current state of the puzzle board, represented as a 2d array.
+     * Current state of the puzzle board packed into a single long; each
+     * cell takes 4 bits, cell (i, j) living at bit offset 4 * (i * dimensions + j).
+     * Boards larger than PACKED_DIMENSIONS take WIDE_BITS_PER_CELL bits a
+     * cell instead, over 128 bits: this holds the low 64, packedHigh the rest.
+     */
+    private long packedState;
+
+    /**
+     * High 64 bits of the state of a board larger than PACKED_DIMENSIONS;
+     * always zero for smaller boards.
+     */
+    private long packedHigh;
+
+    /**
+     * Cell index (i * dimensions + j) of the 'blank' in the puzzle board,
+     * represented here by zero.
+     */
+    private byte blank;
+
+    /**
+     * 2d view of the packed state, only built when asked for
+     * through getState().
      */
     private int[][] state;
 
     /**
-     * Indexes of the 'blank' in the puzzle board, represented here by zero
-     * an (x, y) pair.
+     * Number of bits used to store a single tile in the packed state.
      */
-    private int[] blankIndexes;
-    
+    public static final int BITS_PER_CELL = 4;
+
+    /**
+     * Largest board that fits in a single long (4 x 4 x 4 bits = 64).
+     */
+    public static final int PACKED_DIMENSIONS = 4;
+
+    /**
+     * Number of bits used to store a single tile on boards larger than
+     * PACKED_DIMENSIONS.
+     */
+    public static final int WIDE_BITS_PER_CELL = 5;
+
+    /**
+     * Largest board that fits in the two longs (5 x 5 x 5 bits = 125).
+     */
+    public static final int MAX_DIMENSIONS = 5;
+
+    private static final long CELL_MASK = (1L << BITS_PER_CELL) - 1;
+
+    private static final long WIDE_CELL_MASK = (1L << WIDE_BITS_PER_CELL) - 1;
 
     /**
      * Maximum number of legal moves for a given turn.
@@ -36,6 +75,47 @@ public class TilePuzzleNode {
             {0, -1},  // slide the blank left.
     };
 
+    /**
+     * Move indexes into MOVES; the inverse of a move is always move ^ 1.
+     */
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int RIGHT = 2;
+    public static final int LEFT = 3;
+
+    /**
+     * Packed goal state for each board size, indexed by dimensions.
+     */
+    private static final long[] GOAL_STATES = new long[MAX_DIMENSIONS + 1];
+
+    /**
+     * High word of the packed goal state, indexed by dimensions.
+     */
+    private static final long[] GOAL_HIGH = new long[MAX_DIMENSIONS + 1];
+
+    /**
+     * TARGETS[n][blank * NUMBER_OF_MOVES + move] is the cell the blank
+     * moves to on an n x n board, or -1 if the move leaves the board.
+     */
+    private static final int[][] TARGETS = new int[MAX_DIMENSIONS + 1][];
+
+    static {
+        for (int n = 1; n <= MAX_DIMENSIONS; n++) {
+            GOAL_STATES[n] = goalState(n);
+            GOAL_HIGH[n] = goalStateHigh(n);
+            TARGETS[n] = new int[n * n * NUMBER_OF_MOVES];
+
+            for (int cell = 0; cell < n * n; cell++) {
+                for (int move = 0; move < NUMBER_OF_MOVES; move++) {
+                    int row = cell / n + MOVES[move][0];
+                    int col = cell % n + MOVES[move][1];
+                    boolean onBoard = row >= 0 && col >= 0 && row < n && col < n;
+                    TARGETS[n][cell * NUMBER_OF_MOVES + move] = onBoard ? row * n + col : -1;
+                }
+            }
+        }
+    }
+
     /**
      * Constructor for the puzzle node; reads a puzzle file
      * and determines if the puzzle is solvable or not. If solvable
@@ -61,9 +141,7 @@ public class TilePuzzleNode {
             
             // Check if the board is solvable.
             if (isSolvable(candidateBoard, n)) {
-                this.state = candidateBoard;
-                this.blankIndexes = findBlank(candidateBoard);
-                this.dimensions = n;
+                pack(candidateBoard);
             } else {
                 throw new IllegalArgumentException("Input error: puzzle not solvable");
             }
@@ -81,23 +159,134 @@ public class TilePuzzleNode {
      * @param state: board state
      */
     public TilePuzzleNode (int[][] state) {
-        this.state = state;
-        this.dimensions = state.length;
-        this.blankIndexes = findBlank(this.state);
+        pack(state);
     }
 
     /**
+     * Constructor used when expanding nodes or rebuilding them from
+     * a node store; the state is already packed so no validation is done.
+     *
+     * @param packedState: packed board state.
+     * @param blank: cell index of the blank.
+     * @param dimensions: the dimensions of the board.
+     */
+    public TilePuzzleNode(long packedState, int blank, int dimensions) {
+        this(packedState, 0, blank, dimensions);
+    }
+
+    /**
+     * As above, for boards of any size.
+     *
+     * @param packedState: low word of the packed board state.
+     * @param packedHigh: high word of the packed board state (zero up
+     *                  to PACKED_DIMENSIONS).
+     * @param blank: cell index of the blank.
+     * @param dimensions: the dimensions of the board.
+     */
+    public TilePuzzleNode(long packedState, long packedHigh, int blank, int dimensions) {
+        this.packedState = packedState;
+        this.packedHigh = packedHigh;
+        this.blank = (byte) blank;
+        this.dimensions = dimensions;
+    }
+
+    /**
+     * Packs a 2d board into the node.
+     *
+     * @param board: the puzzle board.
+     */
+    private void pack(int[][] board) {
+        int n = board.length;
+
+        if (n > MAX_DIMENSIONS) {
+            throw new IllegalArgumentException("Puzzle boards larger than "
+                    + MAX_DIMENSIONS + "x" + MAX_DIMENSIONS + " are not supported");
+        }
+        int[] blankPosition = findBlank(board);
+
+        this.dimensions = n;
+        this.packedState = 0;
+        this.packedHigh = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                int val = board[i][j];
+
+                if (val < 0 || val >= n * n) {
+                    throw new IllegalArgumentException("Tile " + val
+                            + " out of range for a " + n + "x" + n + " board");
+                }
+                setTile(i * n + j, val);
+            }
+        }
+        this.blank = (byte) (blankPosition[0] * n + blankPosition[1]);
+        this.state = null;
+    }
+
+    /**
+     * The 2d view is built from the packed state on first use and
+     * should be treated as read only.
+     *
      * @return return board state.
      */
     public int[][] getState() {
+        if (this.state == null) {
+            int[][] view = new int[dimensions][dimensions];
+
+            for (int i = 0; i < dimensions; i++) {
+                for (int j = 0; j < dimensions; j++) {
+                    view[i][j] = getTile(i, j);
+                }
+            }
+            this.state = view;
+        }
         return this.state;
     }
 
+    /**
+     * @param row: row index.
+     * @param col: column index.
+     * @return the tile at (row, col).
+     */
+    public int getTile(int row, int col) {
+        return getTile(row * dimensions + col);
+    }
+
+    /**
+     * @param cell: cell index (i * dimensions + j).
+     * @return the tile in the cell.
+     */
+    public int getTile(int cell) {
+        return tileAt(packedState, packedHigh, dimensions, cell);
+    }
+
+    /**
+     * @return the board state packed into a long; only the low word
+     * for boards larger than PACKED_DIMENSIONS.
+     */
+    public long getPackedState() {
+        return this.packedState;
+    }
+
+    /**
+     * @return the high word of the packed state; zero for boards up to
+     * PACKED_DIMENSIONS.
+     */
+    public long getPackedHigh() {
+        return this.packedHigh;
+    }
+
+    /**
+     * @return cell index (i * dimensions + j) of the blank tile.
+     */
+    public int getBlank() {
+        return this.blank;
+    }
+
     /**
      * @return indexes for the blank tile
      */
     public int[] getBlankIndexes() {
-        return this.blankIndexes;
+        return new int[]{blank / dimensions, blank % dimensions};
     }
 
     /**
@@ -190,30 +379,75 @@ public class TilePuzzleNode {
 
     /**
      * Move the blank tile one space (up, down, left, right).
-     * Clones current state and produces new node where the blank
-     * has been moved.
+     * Produces a new node where the blank has been moved.
      *
      * @param move (up, down, left, right)
-     * @return the
+     * @return the new node, or null if the move leaves the board.
      */
     public TilePuzzleNode slideBlank(int[] move) {
 
-        int nextX = this.getBlankIndexes()[0] + move[0];
-        int nextY = this.getBlankIndexes()[1] + move[1];
+        int nextX = blank / dimensions + move[0];
+        int nextY = blank % dimensions + move[1];
 
         // Check move
         if (!(inBoard(nextX, nextY))) {
             return null;
         } else {
+            return moveBlankTo(nextX * dimensions + nextY, true);
+        }
+    }
 
-            // clone the current node to produce a new state
-            int[][] cloned = cloneState(this.state);
-            TilePuzzleNode newState = new TilePuzzleNode(cloned);
-            newState.swapBlank(newState.blankIndexes[0], 
-                    newState.blankIndexes[1], nextX, nextY);
-            
-            return newState;
+    /**
+     * Move the blank tile one space using a move index (UP, DOWN, RIGHT, LEFT).
+     *
+     * @param move: index into MOVES.
+     * @return the new node, or null if the move leaves the board.
+     */
+    public TilePuzzleNode slideBlank(int move) {
+        int target = targetCell(blank, move, dimensions);
+
+        if (target < 0) {
+            return null;
+        }
+        return moveBlankTo(target, true);
+    }
+
+    /**
+     * @param target: cell index the blank moves to; must be adjacent.
+     * @param copy: true for a new node, false to move this one.
+     * @return the node after the move.
+     */
+    private TilePuzzleNode moveBlankTo(int target, boolean copy) {
+        long low = slideLow(packedState, packedHigh, dimensions, blank, target);
+        long high = slideHigh(packedState, packedHigh, dimensions, blank, target);
+
+        if (copy) {
+            return new TilePuzzleNode(low, high, target, dimensions);
         }
+        packedState = low;
+        packedHigh = high;
+        blank = (byte) target;
+        state = null;
+        return this;
+    }
+
+    /**
+     * Moves the blank in place rather than producing a new node, so a
+     * search can walk one board forwards and back (undo a move by
+     * applying move ^ 1).
+     *
+     * @param move: index into MOVES.
+     * @return false, leaving the board as it was, if the move leaves
+     * the board.
+     */
+    public boolean applyMove(int move) {
+        int target = targetCell(blank, move, dimensions);
+
+        if (target < 0) {
+            return false;
+        }
+        moveBlankTo(target, false);
+        return true;
     }
 
     /**
@@ -225,13 +459,190 @@ public class TilePuzzleNode {
      * @param y2 the new y index of the blank.
      */
     public void swapBlank(int x1, int y1, int x2, int y2) {
-        int temp = state[x1][y1];
-        state[x1][y1] = state[x2][y2];
-        state[x2][y2] = temp;
-        
+        int a = x1 * dimensions + y1;
+        int b = x2 * dimensions + y2;
+        int tileA = getTile(a);
+        int tileB = getTile(b);
+
+        setTile(a, tileB);
+        setTile(b, tileA);
+
         // Finally set the new blank indexes.
-        this.blankIndexes[0] = x2;
-        this.blankIndexes[1] = y2;
+        this.blank = (byte) b;
+        this.state = null;
+    }
+
+    /**
+     * @return true if the node is the goal state (tiles in ascending
+     * order with the blank last).
+     */
+    public boolean isGoal() {
+        return packedState == GOAL_STATES[dimensions] && packedHigh == GOAL_HIGH[dimensions];
+    }
+
+    /**
+     * Overwrites a single cell.
+     *
+     * @param cell: cell index (i * dimensions + j).
+     * @param tile: the tile to put there.
+     */
+    private void setTile(int cell, int tile) {
+        if (dimensions > PACKED_DIMENSIONS) {
+            packedState = withWideCell(packedState, 0, cell, tile);
+            packedHigh = withWideCell(packedHigh, Long.SIZE, cell, tile);
+        } else {
+            int shift = BITS_PER_CELL * cell;
+            packedState = (packedState & ~(CELL_MASK << shift)) | ((long) tile << shift);
+        }
+    }
+
+    /**
+     * @param packedState: a packed board state.
+     * @param cell: cell index (i * dimensions + j).
+     * @return the tile stored in the cell.
+     */
+    public static int tileAt(long packedState, int cell) {
+        return (int) ((packedState >>> (BITS_PER_CELL * cell)) & CELL_MASK);
+    }
+
+    /**
+     * As above, for boards of any size. A wide board's cell may straddle
+     * the two words.
+     *
+     * @param low: low word of a packed board state.
+     * @param high: high word of a packed board state.
+     * @param dimensions: the dimensions of the board.
+     * @param cell: cell index (i * dimensions + j).
+     * @return the tile stored in the cell.
+     */
+    public static int tileAt(long low, long high, int dimensions, int cell) {
+        if (dimensions <= PACKED_DIMENSIONS) {
+            return tileAt(low, cell);
+        }
+        int bit = WIDE_BITS_PER_CELL * cell;
+        long bits;
+
+        if (bit >= Long.SIZE) {
+            bits = high >>> (bit - Long.SIZE);
+        } else if (bit + WIDE_BITS_PER_CELL <= Long.SIZE) {
+            bits = low >>> bit;
+        } else {
+            bits = (low >>> bit) | (high << (Long.SIZE - bit));
+        }
+        return (int) (bits & WIDE_CELL_MASK);
+    }
+
+    /**
+     * Writes whatever part of a wide board's cell lives in one word.
+     *
+     * @param word: one word of a packed board state.
+     * @param offset: bit offset of the word in the state (0 or 64).
+     * @param cell: cell index (i * dimensions + j).
+     * @param tile: the tile to put there.
+     * @return the word with the cell overwritten.
+     */
+    private static long withWideCell(long word, int offset, int cell, int tile) {
+        int shift = WIDE_BITS_PER_CELL * cell - offset;
+
+        if (shift <= -WIDE_BITS_PER_CELL || shift >= Long.SIZE) {
+            return word;
+        } else if (shift >= 0) {
+            return (word & ~(WIDE_CELL_MASK << shift)) | ((long) tile << shift);
+        } else {
+            return (word & ~(WIDE_CELL_MASK >>> -shift)) | ((long) tile >>> -shift);
+        }
+    }
+
+    /**
+     * Slides the tile at target into the blank cell; both cells
+     * must be adjacent.
+     *
+     * @param packedState: a packed board state.
+     * @param blank: cell index of the blank.
+     * @param target: cell index the blank moves to.
+     * @return the packed state after the move.
+     */
+    public static long slide(long packedState, int blank, int target) {
+        long tile = tileAt(packedState, target);
+        return packedState + (tile << (BITS_PER_CELL * blank)) - (tile << (BITS_PER_CELL * target));
+    }
+
+    /**
+     * slide() for boards of any size; the low word after the move.
+     *
+     * @param low: low word of a packed board state.
+     * @param high: high word of a packed board state.
+     * @param dimensions: the dimensions of the board.
+     * @param blank: cell index of the blank.
+     * @param target: cell index the blank moves to.
+     * @return the low word after the move.
+     */
+    public static long slideLow(long low, long high, int dimensions, int blank, int target) {
+        if (dimensions <= PACKED_DIMENSIONS) {
+            return slide(low, blank, target);
+        }
+        int tile = tileAt(low, high, dimensions, target);
+        return withWideCell(withWideCell(low, 0, blank, tile), 0, target, 0);
+    }
+
+    /**
+     * slide() for boards of any size; the high word after the move.
+     *
+     * @param low: low word of a packed board state.
+     * @param high: high word of a packed board state.
+     * @param dimensions: the dimensions of the board.
+     * @param blank: cell index of the blank.
+     * @param target: cell index the blank moves to.
+     * @return the high word after the move.
+     */
+    public static long slideHigh(long low, long high, int dimensions, int blank, int target) {
+        if (dimensions <= PACKED_DIMENSIONS) {
+            return high;
+        }
+        int tile = tileAt(low, high, dimensions, target);
+        return withWideCell(withWideCell(high, Long.SIZE, blank, tile), Long.SIZE, target, 0);
+    }
+
+    /**
+     * @param blank: cell index of the blank.
+     * @param move: index into MOVES.
+     * @param dimensions: the dimensions of the board.
+     * @return cell index the blank would move to, or -1 if the
+     * move leaves the board.
+     */
+    public static int targetCell(int blank, int move, int dimensions) {
+        return TARGETS[dimensions][blank * NUMBER_OF_MOVES + move];
+    }
+
+    /**
+     * @param dimensions: the dimensions of the board.
+     * @return the packed goal state; tiles in ascending order
+     * with the blank coming last.
+     */
+    public static long goalState(int dimensions) {
+        long goal = 0;
+
+        for (int cell = 0; cell < dimensions * dimensions - 1; cell++) {
+            goal = dimensions > PACKED_DIMENSIONS ? withWideCell(goal, 0, cell, cell + 1)
+                    : goal | (long) (cell + 1) << (BITS_PER_CELL * cell);
+        }
+        return goal;
+    }
+
+    /**
+     * @param dimensions: the dimensions of the board.
+     * @return the high word of the packed goal state; zero up to
+     * PACKED_DIMENSIONS.
+     */
+    public static long goalStateHigh(int dimensions) {
+        long goal = 0;
+
+        if (dimensions > PACKED_DIMENSIONS) {
+            for (int cell = 0; cell < dimensions * dimensions - 1; cell++) {
+                goal = withWideCell(goal, Long.SIZE, cell, cell + 1);
+            }
+        }
+        return goal;
     }
 
     /**
@@ -271,7 +682,7 @@ public class TilePuzzleNode {
     public ArrayList<TilePuzzleNode> generateChildren() {
         ArrayList<TilePuzzleNode> children = new ArrayList<>(4);
         
-        for (int[] move : MOVES) {
+        for (int move = 0; move < NUMBER_OF_MOVES; move++) {
             TilePuzzleNode node = slideBlank(move);
             
             if (node != null) {
@@ -299,7 +710,9 @@ public class TilePuzzleNode {
            return false;
        } else {
            TilePuzzleNode other = (TilePuzzleNode) obj;
-           return Arrays.deepEquals(this.state, other.state);
+           return this.packedState == other.packedState
+                   && this.packedHigh == other.packedHigh
+                   && this.dimensions == other.dimensions;
        }
     }
 
@@ -309,9 +722,10 @@ public class TilePuzzleNode {
      */
     @Override
     public int hashCode() {
-        int result = Arrays.hashCode(state);
-        result = 31 * result + Arrays.hashCode(blankIndexes);
-        return result;
+        // Mix the bits so boards differing in a single cell spread
+        // across the table.
+        long h = (packedState ^ packedHigh * 0xC2B2AE3D27D4EB4FL) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
     }
 
     /**
@@ -320,6 +734,7 @@ public class TilePuzzleNode {
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder();
+        int[][] state = getState();
 
         for (int[] ints : state) {
             for (int j = 0; j < ints.length; j++) {
@@ -0,0 +1,235 @@
+import java.util.Arrays;
+
+/**
+ * Walking distance (Ken'ichiro Takahashi) for 4x4 boards.
+ *
+ * Looking only at rows, a board is reduced to a 4x4 matrix counting, for
+ * every row, how many of its tiles belong in each goal row, plus the row
+ * of the blank. A vertical move carries one tile between the blank's row
+ * and a neighbouring one. The fewest such moves from a board's matrix to
+ * the goal's, found for all 24,964 reachable matrices by one breadth-
+ * first search, is a lower bound on the vertical moves the board needs.
+ * Columns give the horizontal bound in the same way (by symmetry, from
+ * the same table), and the two add up: no move is both. Unlike Manhattan
+ * distance, tiles in a row get in each other's way, so the estimate is
+ * often much larger.
+ *
+ * A row's counts sum to four (three in the blank's row), so there are
+ * only 55 of them; each row's code is looked up from its 16 bits of the
+ * packed state, and the four codes index the distance table directly.
+ * A vertical move leaves the columns' matrix as it was, and a horizontal
+ * move the rows', so only one of the two is looked up again.
+ *
+ * @author Joseph Adamson
+ * @version December 2020
+ */
+public class WalkingDistance implements Heuristic {
+
+    private static final int DIMENSIONS = 4;
+
+    /**
+     * Number of ways a line's tiles can be spread over the goal lines:
+     * 35 with four tiles, 20 with three.
+     */
+    private static final int CODES = 55;
+
+    /**
+     * Bits of a line of the packed state.
+     */
+    private static final int LINE_BITS = DIMENSIONS * TilePuzzleNode.BITS_PER_CELL;
+
+    private static final int LINE_MASK = (1 << LINE_BITS) - 1;
+
+    /**
+     * CODE_OF[counts] is the code of a line whose tiles belong in goal
+     * lines as counted (three bits a line); COUNTS[code] is the reverse.
+     */
+    private static final byte[] CODE_OF = new byte[1 << (3 * DIMENSIONS)];
+    private static final int[] COUNTS = new int[CODES];
+
+    /**
+     * ROW_CODES[bits] is the code of a row holding those 16 bits of the
+     * packed state; COLUMN_CODES[bits] likewise for a column, its cells
+     * gathered top to bottom.
+     */
+    private static final byte[] ROW_CODES = new byte[1 << LINE_BITS];
+    private static final byte[] COLUMN_CODES = new byte[1 << LINE_BITS];
+
+    /**
+     * DISTANCES[((c0 * 55 + c1) * 55 + c2) * 55 + c3] is the walking
+     * distance of the lines with codes c0-c3, or -1 if unreachable.
+     */
+    private static final byte[] DISTANCES = new byte[CODES * CODES * CODES * CODES];
+
+    /**
+     * Number of line matrices reachable from the goal's.
+     */
+    private static final int PATTERNS;
+
+    static {
+        int code = 0;
+        for (int counts = 0; counts < CODE_OF.length; counts++) {
+            int sum = 0;
+            for (int line = 0; line < DIMENSIONS; line++) {
+                sum += count(counts, line);
+            }
+            if (sum == DIMENSIONS || sum == DIMENSIONS - 1) {
+                CODE_OF[counts] = (byte) code;
+                COUNTS[code++] = counts;
+            }
+        }
+
+        for (int bits = 0; bits <= LINE_MASK; bits++) {
+            int rowCounts = 0;
+            int columnCounts = 0;
+
+            for (int i = 0; i < DIMENSIONS; i++) {
+                int tile = (bits >>> (TilePuzzleNode.BITS_PER_CELL * i)) & 0xF;
+
+                if (tile != 0) {
+                    rowCounts += 1 << (3 * ((tile - 1) / DIMENSIONS));
+                    columnCounts += 1 << (3 * ((tile - 1) % DIMENSIONS));
+                }
+            }
+            // Lines with repeated tiles can't occur on a board; their
+            // codes are never used.
+            ROW_CODES[bits] = CODE_OF[rowCounts & (CODE_OF.length - 1)];
+            COLUMN_CODES[bits] = CODE_OF[columnCounts & (CODE_OF.length - 1)];
+        }
+        PATTERNS = build();
+    }
+
+    /**
+     * @param node: a 4x4 board.
+     * @return walking distance of the board, rows plus columns.
+     */
+    @Override
+    public int estimate(TilePuzzleNode node) {
+        if (node.getDimensions() != DIMENSIONS) {
+            throw new IllegalArgumentException("Walking distance is only for 4x4 boards");
+        }
+        long state = node.getPackedState();
+        return DISTANCES[rowIndex(state)] + DISTANCES[columnIndex(state)];
+    }
+
+    /**
+     * Only the lines the tile moved across change: rows on a vertical
+     * move, columns on a horizontal one.
+     */
+    @Override
+    public int estimateAfterMove(int parentH, TilePuzzleNode node, int move) {
+        long state = node.getPackedState();
+        int blank = node.getBlank();
+        long parent = TilePuzzleNode.slide(state, blank,
+                TilePuzzleNode.targetCell(blank, move ^ 1, DIMENSIONS));
+
+        if (move == TilePuzzleNode.UP || move == TilePuzzleNode.DOWN) {
+            return parentH - DISTANCES[rowIndex(parent)] + DISTANCES[rowIndex(state)];
+        }
+        return parentH - DISTANCES[columnIndex(parent)] + DISTANCES[columnIndex(state)];
+    }
+
+    /**
+     * @return number of row (or column) matrices reachable from the goal.
+     */
+    public static int patterns() {
+        return PATTERNS;
+    }
+
+    private static int rowIndex(long state) {
+        int index = 0;
+        for (int row = 0; row < DIMENSIONS; row++) {
+            index = index * CODES + ROW_CODES[(int) (state >>> (LINE_BITS * row)) & LINE_MASK];
+        }
+        return index;
+    }
+
+    private static int columnIndex(long state) {
+        int index = 0;
+        for (int col = 0; col < DIMENSIONS; col++) {
+            long column = state >>> (TilePuzzleNode.BITS_PER_CELL * col);
+            int bits = (int) (column & 0xF)
+                    | (int) ((column >>> LINE_BITS) & 0xF) << 4
+                    | (int) ((column >>> (2 * LINE_BITS)) & 0xF) << 8
+                    | (int) ((column >>> (3 * LINE_BITS)) & 0xF) << 12;
+            index = index * CODES + COLUMN_CODES[bits];
+        }
+        return index;
+    }
+
+    /**
+     * @return number of tiles counted for a goal line.
+     */
+    private static int count(int counts, int line) {
+        return (counts >>> (3 * line)) & 7;
+    }
+
+    /**
+     * Breadth-first search over line matrices from the goal's; a move
+     * carries one tile from a line next to the blank's into it.
+     *
+     * @return number of matrices reached.
+     */
+    private static int build() {
+        Arrays.fill(DISTANCES, (byte) -1);
+        int[] queue = new int[1 << 15];
+        int[] codes = new int[DIMENSIONS];
+
+        // The goal: every line holds its own tiles, the last only three.
+        int goal = 0;
+        for (int line = 0; line < DIMENSIONS; line++) {
+            int tiles = line == DIMENSIONS - 1 ? DIMENSIONS - 1 : DIMENSIONS;
+            goal = goal * CODES + CODE_OF[tiles << (3 * line)];
+        }
+        DISTANCES[goal] = 0;
+        queue[0] = goal;
+        int head = 0;
+        int tail = 1;
+
+        while (head < tail) {
+            int index = queue[head++];
+            int blankLine = 0;
+
+            for (int line = DIMENSIONS - 1, rest = index; line >= 0; line--, rest /= CODES) {
+                codes[line] = rest % CODES;
+                if (sum(COUNTS[codes[line]]) == DIMENSIONS - 1) {
+                    blankLine = line;
+                }
+            }
+
+            for (int from = blankLine - 1; from <= blankLine + 1; from += 2) {
+                if (from < 0 || from >= DIMENSIONS) {
+                    continue;
+                }
+                for (int home = 0; home < DIMENSIONS; home++) {
+                    if (count(COUNTS[codes[from]], home) == 0) {
+                        continue;
+                    }
+                    int child = 0;
+                    for (int line = 0; line < DIMENSIONS; line++) {
+                        int counts = COUNTS[codes[line]];
+                        if (line == from) {
+                            counts -= 1 << (3 * home);
+                        } else if (line == blankLine) {
+                            counts += 1 << (3 * home);
+                        }
+                        child = child * CODES + CODE_OF[counts];
+                    }
+                    if (DISTANCES[child] == -1) {
+                        DISTANCES[child] = (byte) (DISTANCES[index] + 1);
+                        queue[tail++] = child;
+                    }
+                }
+            }
+        }
+        return tail;
+    }
+
+    private static int sum(int counts) {
+        int sum = 0;
+        for (int line = 0; line < DIMENSIONS; line++) {
+            sum += count(counts, line);
+        }
+        return sum;
+    }
+}
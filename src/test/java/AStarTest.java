@@ -0,0 +1,300 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AStarTest {
+
+    /**
+     * Reads a puzzle from src/test/testResources.
+     */
+    static TilePuzzleNode load(String puzzle) {
+        return new TilePuzzleNode(System.getProperty("user.dir")
+                + "/src/test/testResources/" + puzzle);
+    }
+
+    /**
+     * Checks the path is made of legal moves, starts at the goal
+     * and ends at the start state.
+     */
+    static void assertValidPath(TilePuzzleNode start, ArrayList<TilePuzzleNode> path) {
+        assertTrue(path.get(0).isGoal());
+        assertEquals(start, path.get(path.size() - 1));
+
+        for (int i = 1; i < path.size(); i++) {
+            assertTrue(path.get(i).generateChildren().contains(path.get(i - 1)));
+        }
+    }
+
+    //----search----
+
+    /**
+     * original:
+     *           1 8 2
+     *           0 4 3
+     *           7 6 5
+     */
+    @Test
+    public void searchTest1() {
+        TilePuzzleNode start = load("puzzle2.txt");
+        ArrayList<TilePuzzleNode> path = new AStar(new ManhattanDistance()).search(start);
+
+        assertEquals(9, path.size() - 1);
+        assertValidPath(start, path);
+    }
+
+    /**
+     * 4x4, four moves from the goal.
+     */
+    @Test
+    public void searchTest2() {
+        TilePuzzleNode start = load("puzzle4.txt");
+        ArrayList<TilePuzzleNode> path = new AStar(new ManhattanDistance()).search(start);
+
+        assertEquals(4, path.size() - 1);
+        assertValidPath(start, path);
+    }
+
+    /**
+     * 4x4 needing 38 moves.
+     */
+    @Test
+    public void searchTest3() {
+        TilePuzzleNode start = load("puzzle9.txt");
+        ArrayList<TilePuzzleNode> path = new AStar(new ManhattanDistance()).search(start);
+
+        assertEquals(38, path.size() - 1);
+        assertValidPath(start, path);
+    }
+
+    /**
+     * Start state is already the goal.
+     */
+    @Test
+    public void searchTest4() {
+        int[][] goal = {
+                {1, 2, 3},
+                {4, 5, 6},
+                {7, 8, 0}
+        };
+        ArrayList<TilePuzzleNode> path = new AStar(new ManhattanDistance()).search(new TilePuzzleNode(goal));
+
+        assertEquals(1, path.size());
+    }
+
+    /**
+     * 5x5 boards don't fit the node arena; they are left to IDA*.
+     */
+    @Test
+    public void searchTest5() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new AStar(new ManhattanDistance()).search(load("puzzle13.txt"));
+        });
+    }
+
+    //----open list strategies----
+
+    /**
+     * Both open lists find paths of the same (optimal) length.
+     */
+    @Test
+    public void openListTest1() {
+        TilePuzzleNode start = load("puzzle10.txt");
+
+        ArrayList<TilePuzzleNode> heap = new AStar(new ManhattanDistance(),
+                OpenList.Type.BINARY_HEAP).search(start);
+        ArrayList<TilePuzzleNode> buckets = new AStar(new ManhattanDistance(),
+                OpenList.Type.BUCKETS).search(start);
+
+        assertEquals(44, heap.size() - 1);
+        assertEquals(44, buckets.size() - 1);
+        assertValidPath(start, buckets);
+    }
+
+    /**
+     * Buckets pop lowest f first, then deepest g, then most recent.
+     */
+    @Test
+    public void openListTest2() {
+        BucketOpenList open = new BucketOpenList();
+        open.push(0, 10, 2);
+        open.push(1, 10, 5);
+        open.push(2, 8, 1);
+        open.push(3, 10, 5);
+
+        assertEquals(8, open.minF());
+        assertEquals(2, open.pop());
+        assertEquals(3, open.pop());
+        assertEquals(1, open.pop());
+        assertEquals(0, open.pop());
+        assertTrue(open.isEmpty());
+    }
+
+    //----bounded suboptimal----
+
+    /**
+     * Plain A* proves its own path optimal.
+     */
+    @Test
+    public void boundTest1() {
+        SearchResult result = new AStar(new ManhattanWithLinearConflict())
+                .searchWithBound(load("puzzle10.txt"));
+
+        assertEquals(44, result.getCost());
+        assertEquals(44, result.getLowerBound());
+        assertTrue(result.isOptimal());
+    }
+
+    /**
+     * Weighted A* stays within its weight of optimal, and its lower
+     * bound proves it.
+     */
+    @Test
+    public void boundTest2() {
+        TilePuzzleNode start = load("puzzle10.txt");
+        AStar optimal = new AStar(new ManhattanWithLinearConflict());
+        AStar weighted = new AStar(new ManhattanWithLinearConflict(), 1.5);
+        optimal.search(start);
+        SearchResult result = weighted.searchWithBound(start);
+
+        assertValidPath(start, result.getPath());
+        assertTrue(result.getCost() <= 1.5 * 44);
+        assertTrue(result.getLowerBound() <= 44);
+        assertTrue(result.getSuboptimality() <= 1.5);
+        assertTrue(weighted.getLastStats().getExpanded()
+                < optimal.getLastStats().getExpanded());
+    }
+
+    /**
+     * A*_epsilon stays within (1 + epsilon) of optimal.
+     */
+    @Test
+    public void boundTest3() {
+        TilePuzzleNode start = load("puzzle10.txt");
+        SearchResult result = AStar.focal(new ManhattanWithLinearConflict(), 0.1)
+                .searchWithBound(start);
+
+        assertValidPath(start, result.getPath());
+        assertTrue(result.getLowerBound() <= 44);
+        assertTrue(result.getSuboptimality() <= 1.1);
+    }
+
+    /**
+     * Weights below 1 could lose the bound and are refused.
+     */
+    @Test
+    public void boundTest4() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new AStar(new ManhattanDistance(), 0.5);
+        });
+    }
+
+    /**
+     * Weights are rounded down to sixteenths, never up, so the weight
+     * used is never more than the one asked for (1.04 is plain A*).
+     */
+    @Test
+    public void boundTest5() {
+        assertEquals(16, AStar.hScale(1.04));
+        assertEquals(17, AStar.hScale(1.0625));
+        assertEquals(24, AStar.hScale(1.5));
+
+        for (double w = 1; w <= 3; w += 0.01) {
+            assertTrue(AStar.hScale(w) <= w * AStar.WEIGHT_SCALE);
+        }
+    }
+
+    /**
+     * A bound of 0 only proves a path optimal when the path is empty;
+     * for a longer one it bounds nothing.
+     */
+    @Test
+    public void boundTest6() {
+        TilePuzzleNode start = load("puzzle4.txt");
+        ArrayList<TilePuzzleNode> path = new AStar(new ManhattanDistance()).search(start);
+        SearchResult unproven = new SearchResult(path, 0, null);
+
+        assertFalse(unproven.isOptimal());
+        assertEquals(Double.POSITIVE_INFINITY, unproven.getSuboptimality());
+        assertEquals(1.0, new SearchResult(path, path.size() - 1, null).getSuboptimality());
+
+        ArrayList<TilePuzzleNode> goal = new ArrayList<>();
+        goal.add(path.get(0));
+        assertEquals(1.0, new SearchResult(goal, 0, null).getSuboptimality());
+    }
+
+    //----limits----
+
+    /**
+     * A node limit ends the search with no path and the lowest f still
+     * open as the lower bound.
+     */
+    @Test
+    public void limitTest1() {
+        TilePuzzleNode start = load("puzzle1.txt");
+        AStar aStar = new AStar(new ManhattanWithLinearConflict());
+        SearchResult result = aStar.solve(start, SearchLimit.NONE.withMaxExpanded(5000));
+
+        assertEquals(SearchResult.Status.NODE_LIMIT, result.getStatus());
+        assertFalse(result.hasPath());
+        assertTrue(result.getLowerBound() >= new ManhattanWithLinearConflict().estimate(start));
+        assertTrue(result.getLowerBound() <= 51);
+        assertTrue(aStar.getLastStats().getExpanded() < 5000 + SearchLimit.CHECK_INTERVAL);
+    }
+
+    /**
+     * Memory and cancel limits stop the search too, and a cut off
+     * search given no limits object throws.
+     */
+    @Test
+    public void limitTest2() {
+        TilePuzzleNode start = load("puzzle1.txt");
+        AStar aStar = new AStar(new ManhattanWithLinearConflict());
+        SearchLimit.CancelToken token = new SearchLimit.CancelToken();
+        token.cancel();
+
+        assertEquals(SearchResult.Status.MEMORY_LIMIT,
+                aStar.solve(start, SearchLimit.NONE.withMaxMemory(1 << 20)).getStatus());
+        assertEquals(SearchResult.Status.CANCELLED,
+                aStar.solve(start, SearchLimit.NONE.withCancelToken(token)).getStatus());
+        assertThrows(IllegalStateException.class, () -> {
+            Thread.currentThread().interrupt();
+            try {
+                aStar.search(start);
+            } finally {
+                Thread.interrupted();
+            }
+        });
+    }
+
+    //----stats----
+
+    /**
+     * Counters are published when the search finishes, to the listener
+     * and through getLastStats.
+     */
+    @Test
+    public void statsTest() {
+        AStar aStar = new AStar(new ManhattanDistance());
+        ArrayList<SearchStats> finished = new ArrayList<>();
+        aStar.search(load("puzzle9.txt"), new SearchListener() {
+            @Override
+            public void searchFinished(SearchStats stats) {
+                finished.add(stats);
+            }
+        });
+        SearchStats stats = aStar.getLastStats();
+
+        assertEquals(1, finished.size());
+        assertSame(stats, finished.get(0));
+        assertEquals(38, stats.getSolutionLength());
+        assertTrue(stats.getGenerated() > stats.getExpanded());
+        assertTrue(stats.getExpanded() >= stats.getPeakClosed());
+        assertTrue(stats.getPeakOpen() > 0);
+        assertTrue(stats.getDuplicates() > 0);
+        assertTrue(stats.getMaxDepth() >= 38);
+        assertTrue(stats.getBytesPerNode() > 0 && stats.getBytesPerNode() < 200);
+        assertTrue(stats.getIterations().isEmpty());
+    }
+}
@@ -0,0 +1,103 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnytimeRepairingAStarTest {
+
+    private AnytimeRepairingAStar ara;
+
+    @BeforeEach
+    public void init() {
+        ara = new AnytimeRepairingAStar(new ManhattanWithLinearConflict());
+    }
+
+    //----search----
+
+    /**
+     * Without a budget the search carries on to an optimal path.
+     */
+    @Test
+    public void searchTest1() {
+        TilePuzzleNode start = AStarTest.load("puzzle10.txt");
+        ArrayList<TilePuzzleNode> path = ara.solve(start);
+
+        assertEquals(44, path.size() - 1);
+        AStarTest.assertValidPath(start, path);
+    }
+
+    /**
+     * Start state is already the goal.
+     */
+    @Test
+    public void searchTest2() {
+        int[][] goal = {
+                {1, 2, 3},
+                {4, 5, 6},
+                {7, 8, 0}
+        };
+        SearchResult result = ara.search(new TilePuzzleNode(goal), SearchLimit.NONE, SearchListener.NONE);
+
+        assertEquals(0, result.getCost());
+        assertTrue(result.isOptimal());
+    }
+
+    //----improvements----
+
+    /**
+     * Every improvement is a valid path; costs only fall and lower
+     * bounds only rise, ending at the optimal cost.
+     */
+    @Test
+    public void improvementTest() {
+        TilePuzzleNode start = AStarTest.load("puzzle1.txt");
+        ArrayList<SearchResult> improved = new ArrayList<>();
+        SearchResult result = ara.search(start, SearchLimit.NONE, new SearchListener() {
+            @Override
+            public void solutionImproved(SearchResult result) {
+                improved.add(result);
+            }
+        });
+
+        assertTrue(improved.size() > 1);
+        assertSame(result, improved.get(improved.size() - 1));
+        assertEquals(51, result.getCost());
+        assertTrue(result.isOptimal());
+
+        for (int i = 0; i < improved.size(); i++) {
+            SearchResult current = improved.get(i);
+            AStarTest.assertValidPath(start, current.getPath());
+            assertTrue(current.getLowerBound() <= 51);
+            assertTrue(current.getCost() <= 2 * 51);
+            if (i > 0) {
+                assertTrue(current.getCost() <= improved.get(i - 1).getCost());
+                assertTrue(current.getLowerBound() >= improved.get(i - 1).getLowerBound());
+            }
+        }
+    }
+
+    //----budget----
+
+    /**
+     * With no time to spare the first, weighted, path is returned.
+     */
+    @Test
+    public void budgetTest() {
+        TilePuzzleNode start = AStarTest.load("puzzle1.txt");
+        ArrayList<SearchResult> improved = new ArrayList<>();
+        SearchResult result = ara.search(start, Duration.ZERO, new SearchListener() {
+            @Override
+            public void solutionImproved(SearchResult result) {
+                improved.add(result);
+            }
+        });
+
+        assertEquals(1, improved.size());
+        AStarTest.assertValidPath(start, result.getPath());
+        assertTrue(result.getCost() > 51 && result.getCost() <= 2 * 51);
+        assertTrue(result.getSuboptimality() <= 2);
+    }
+}
@@ -0,0 +1,195 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSolverTest {
+
+    private static final String[] PUZZLES = {
+            "puzzle2.txt", "puzzle3.txt", "puzzle4.txt", "puzzle5.txt", "puzzle7.txt", "puzzle10.txt"
+    };
+
+    private static final int[] LENGTHS = {9, 8, 4, 40, 9, 44};
+
+    private static Stream<TilePuzzleNode> puzzles() {
+        return Stream.of(PUZZLES).map(AStarTest::load);
+    }
+
+    //----ordering----
+
+    /**
+     * Input order hands back every result in the order read.
+     */
+    @Test
+    public void orderTest1() throws InterruptedException {
+        SearchAlgorithm ida = SearchAlgorithm.Type.IDA_STAR.create(new ManhattanWithLinearConflict());
+
+        try (BatchSolver solver = new BatchSolver(ida, 3, 4)) {
+            ArrayList<BatchSolver.Result> results = solver.solveAll(puzzles());
+
+            assertEquals(PUZZLES.length, results.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i, results.get(i).getIndex());
+                assertEquals(LENGTHS[i], results.get(i).getLength());
+                AStarTest.assertValidPath(results.get(i).getPuzzle(), results.get(i).getPath());
+            }
+        }
+    }
+
+    /**
+     * Completion order hands back every result once, with the summary
+     * counting all of them.
+     */
+    @Test
+    public void orderTest2() throws InterruptedException {
+        SearchAlgorithm aStar = SearchAlgorithm.Type.A_STAR.create(new ManhattanWithLinearConflict());
+        boolean[] seen = new boolean[PUZZLES.length];
+
+        try (BatchSolver solver = new BatchSolver(aStar, 2, 2)) {
+            BatchSolver.Summary summary = solver.solve(puzzles(), BatchSolver.Order.COMPLETION, result -> {
+                assertFalse(seen[result.getIndex()]);
+                seen[result.getIndex()] = true;
+                assertEquals(LENGTHS[result.getIndex()], result.getLength());
+            });
+
+            assertEquals(PUZZLES.length, summary.getSolved());
+            assertEquals(0, summary.getFailed());
+            assertTrue(summary.getPuzzlesPerSecond() > 0);
+        }
+        for (boolean s : seen) {
+            assertTrue(s);
+        }
+    }
+
+    //----failures and backpressure----
+
+    /**
+     * An engine that throws fails that puzzle only.
+     */
+    @Test
+    public void failureTest() throws InterruptedException {
+        SearchAlgorithm ida = SearchAlgorithm.Type.IDA_STAR.create(new ManhattanDistance());
+        SearchAlgorithm flaky = start -> {
+            if (start.getDimensions() == 4) {
+                throw new IllegalStateException("no 4x4 today");
+            }
+            return ida.solve(start);
+        };
+
+        try (BatchSolver solver = new BatchSolver(flaky, 2, 8)) {
+            ArrayList<BatchSolver.Result> results = solver.solveAll(puzzles());
+
+            assertEquals(9, results.get(0).getLength());
+            assertFalse(results.get(3).isSolved());
+            assertTrue(results.get(3).getError() instanceof IllegalStateException);
+        }
+    }
+
+    /**
+     * Puzzles cut off by the search limit fail; the rest are solved.
+     */
+    @Test
+    public void limitTest() throws InterruptedException {
+        SearchAlgorithm ida = SearchAlgorithm.Type.IDA_STAR.create(new ManhattanWithLinearConflict());
+
+        try (BatchSolver solver = new BatchSolver(ida, 2, 4,
+                SearchLimit.NONE.withMaxExpanded(2000))) {
+            ArrayList<BatchSolver.Result> results = solver.solveAll(puzzles());
+
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(LENGTHS[i] < 40, results.get(i).isSolved());
+            }
+            assertTrue(results.get(3).getError() instanceof IllegalStateException);
+        }
+    }
+
+    /**
+     * No more than maxInFlight puzzles are started before their results
+     * are passed on.
+     */
+    @Test
+    public void backpressureTest() throws InterruptedException {
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger passedOn = new AtomicInteger();
+        AtomicInteger mostInFlight = new AtomicInteger();
+        SearchAlgorithm ida = SearchAlgorithm.Type.IDA_STAR.create(new ManhattanDistance());
+        SearchAlgorithm counting = start -> {
+            mostInFlight.accumulateAndGet(started.incrementAndGet() - passedOn.get(), Math::max);
+            return ida.solve(start);
+        };
+        Stream<TilePuzzleNode> many = Stream.generate(() -> AStarTest.load("puzzle3.txt")).limit(200);
+
+        try (BatchSolver solver = new BatchSolver(counting, 4, 3)) {
+            solver.solve(many, BatchSolver.Order.INPUT, result -> passedOn.incrementAndGet());
+        }
+        assertEquals(200, passedOn.get());
+        assertTrue(mostInFlight.get() <= 3);
+    }
+
+    /**
+     * A consumer that throws in input order ends the batch with its
+     * exception rather than hanging it, and later results aren't passed
+     * on after it.
+     */
+    @Test
+    public void consumerFailureTest() {
+        AtomicInteger passedOn = new AtomicInteger();
+        SearchAlgorithm ida = SearchAlgorithm.Type.IDA_STAR.create(new ManhattanDistance());
+        Stream<TilePuzzleNode> many = Stream.generate(() -> AStarTest.load("puzzle3.txt")).limit(50);
+
+        try (BatchSolver solver = new BatchSolver(ida, 4, 3)) {
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> solver.solve(many, BatchSolver.Order.INPUT, result -> {
+                        if (passedOn.incrementAndGet() == 2) {
+                            throw new IllegalStateException("consumer failed");
+                        }
+                    }));
+            assertEquals("consumer failed", e.getMessage());
+        }
+        assertEquals(2, passedOn.get());
+    }
+
+    /**
+     * An engine that throws an Error ends the batch with it rather than
+     * hanging it, in either order.
+     */
+    @Test
+    public void engineErrorTest() {
+        SearchAlgorithm failing = new SearchAlgorithm() {
+            @Override
+            public ArrayList<TilePuzzleNode> solve(TilePuzzleNode start) {
+                throw new OutOfMemoryError("engine failed");
+            }
+
+            @Override
+            public SearchResult solve(TilePuzzleNode start, SearchLimit limit) {
+                throw new OutOfMemoryError("engine failed");
+            }
+        };
+
+        try (BatchSolver solver = new BatchSolver(failing, 2, 3)) {
+            OutOfMemoryError e = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> assertThrows(OutOfMemoryError.class, () -> solver.solveAll(puzzles())));
+            assertEquals("engine failed", e.getMessage());
+
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(OutOfMemoryError.class,
+                    () -> solver.solve(puzzles(), BatchSolver.Order.COMPLETION, result -> { })));
+        }
+    }
+
+    /**
+     * A closed solver refuses new batches instead of hanging.
+     */
+    @Test
+    public void closedTest() {
+        BatchSolver solver = new BatchSolver(SearchAlgorithm.Type.IDA_STAR.create(new ManhattanDistance()), 1, 2);
+        solver.close();
+
+        assertThrows(RejectedExecutionException.class, () -> solver.solveAll(puzzles()));
+    }
+}
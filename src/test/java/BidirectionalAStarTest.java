@@ -0,0 +1,115 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BidirectionalAStarTest {
+
+    private BidirectionalAStar mm;
+
+    @BeforeEach
+    public void init() {
+        mm = new BidirectionalAStar(new ManhattanWithLinearConflict());
+    }
+
+    //----search----
+
+    /**
+     * original:
+     *           1 8 2
+     *           0 4 3
+     *           7 6 5
+     */
+    @Test
+    public void searchTest1() {
+        TilePuzzleNode start = AStarTest.load("puzzle2.txt");
+        ArrayList<TilePuzzleNode> path = mm.search(start);
+
+        assertEquals(9, path.size() - 1);
+        AStarTest.assertValidPath(start, path);
+    }
+
+    /**
+     * 4x4 needing 44 moves; the path is proven optimal.
+     */
+    @Test
+    public void searchTest2() {
+        TilePuzzleNode start = AStarTest.load("puzzle10.txt");
+        SearchResult result = mm.solve(start, SearchLimit.NONE);
+
+        assertEquals(44, result.getCost());
+        assertTrue(result.isOptimal());
+        AStarTest.assertValidPath(start, result.getPath());
+    }
+
+    /**
+     * Start state is already the goal.
+     */
+    @Test
+    public void searchTest3() {
+        int[][] goal = {
+                {1, 2, 3},
+                {4, 5, 6},
+                {7, 8, 0}
+        };
+        ArrayList<TilePuzzleNode> path = mm.search(new TilePuzzleNode(goal));
+
+        assertEquals(1, path.size());
+        assertTrue(path.get(0).isGoal());
+    }
+
+    /**
+     * Heuristics that only know the goal can't search backwards, so the
+     * engine type refuses them, and 5x5 boards don't fit the state store.
+     */
+    @Test
+    public void searchTest4() {
+        SearchAlgorithm.Type type = SearchAlgorithm.Type.BIDIRECTIONAL_A_STAR;
+
+        assertFalse(type.accepts(new WalkingDistance()));
+        assertTrue(type.accepts(new ManhattanDistance()));
+        assertThrows(IllegalArgumentException.class, () -> {
+            type.create(new WalkingDistance());
+        });
+        assertThrows(IllegalArgumentException.class, () -> {
+            mm.search(AStarTest.load("puzzle13.txt"));
+        });
+    }
+
+    //----limits----
+
+    /**
+     * A node limit ends the search with no path and a lower bound no
+     * more than the optimal length.
+     */
+    @Test
+    public void limitTest() {
+        TilePuzzleNode start = AStarTest.load("puzzle1.txt");
+        SearchResult result = mm.solve(start, SearchLimit.NONE.withMaxExpanded(5000));
+
+        assertEquals(SearchResult.Status.NODE_LIMIT, result.getStatus());
+        assertFalse(result.hasPath());
+        assertTrue(result.getLowerBound() >= new ManhattanWithLinearConflict().estimate(start));
+        assertTrue(result.getLowerBound() <= 51);
+    }
+
+    //----stats----
+
+    /**
+     * Both sides count towards the totals, and the store holds each
+     * board once.
+     */
+    @Test
+    public void statsTest() {
+        mm.search(AStarTest.load("puzzle9.txt"));
+        SearchStats stats = mm.getLastStats();
+
+        assertEquals(38, stats.getSolutionLength());
+        assertTrue(stats.getGenerated() > stats.getExpanded());
+        assertTrue(stats.getPeakOpen() > 0);
+        assertTrue(stats.getMemoryBytes() > 0);
+        assertTrue(stats.getMaxDepth() <= 38);
+    }
+}
@@ -0,0 +1,112 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EightPuzzleOracleTest {
+
+    private EightPuzzleOracle oracle;
+
+    @BeforeEach
+    public void init() {
+        oracle = new EightPuzzleOracle(new IterativeDeepeningAStar(new ManhattanWithLinearConflict()));
+    }
+
+    //----ranking----
+
+    /**
+     * Ranks run from 0 for tiles in ascending order to 9! - 1 for
+     * tiles in descending order.
+     *
+     *           0 1 2          8 7 6
+     *           3 4 5          5 4 3
+     *           6 7 8          2 1 0
+     */
+    @Test
+    public void rankTest() {
+        int[][] ascending = {
+                {0, 1, 2},
+                {3, 4, 5},
+                {6, 7, 8}
+        };
+        int[][] descending = {
+                {8, 7, 6},
+                {5, 4, 3},
+                {2, 1, 0}
+        };
+        assertEquals(0, EightPuzzleOracle.rank(new TilePuzzleNode(ascending).getPackedState()));
+        assertEquals(362879, EightPuzzleOracle.rank(new TilePuzzleNode(descending).getPackedState()));
+    }
+
+    //----distances----
+
+    /**
+     * Half the permutations are solvable, none more than 31 moves away,
+     * and the oracle agrees with IDA* on the test puzzles.
+     */
+    @Test
+    public void distanceTest() {
+        int[][] hardest = {
+                {8, 6, 7},
+                {2, 5, 4},
+                {3, 0, 1}
+        };
+        int[][] unsolvable = {
+                {2, 1, 3},
+                {4, 5, 6},
+                {7, 8, 0}
+        };
+        assertEquals(9, EightPuzzleOracle.distance(AStarTest.load("puzzle2.txt")));
+        assertEquals(31, EightPuzzleOracle.distance(new TilePuzzleNode(hardest)));
+        assertEquals(EightPuzzleOracle.UNSOLVABLE,
+                EightPuzzleOracle.distance(new TilePuzzleNode(unsolvable)));
+    }
+
+    //----solve----
+
+    /**
+     * original:
+     *           1 8 2
+     *           0 4 3
+     *           7 6 5
+     */
+    @Test
+    public void solveTest1() {
+        TilePuzzleNode start = AStarTest.load("puzzle2.txt");
+        ArrayList<TilePuzzleNode> path = oracle.solve(start);
+
+        assertEquals(9, path.size() - 1);
+        AStarTest.assertValidPath(start, path);
+    }
+
+    /**
+     * Start state is already the goal.
+     */
+    @Test
+    public void solveTest2() {
+        int[][] goal = {
+                {1, 2, 3},
+                {4, 5, 6},
+                {7, 8, 0}
+        };
+        ArrayList<TilePuzzleNode> path = oracle.solve(new TilePuzzleNode(goal));
+
+        assertEquals(1, path.size());
+        assertTrue(path.get(0).isGoal());
+    }
+
+    /**
+     * Other sizes go to the fallback engine, or are refused without one.
+     */
+    @Test
+    public void solveTest3() {
+        TilePuzzleNode start = AStarTest.load("puzzle5.txt");
+
+        assertEquals(40, oracle.solve(start).size() - 1);
+        assertThrows(IllegalArgumentException.class, () -> {
+            new EightPuzzleOracle().solve(start);
+        });
+    }
+}
@@ -0,0 +1,184 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradedPuzzlesTest {
+
+    private GradedPuzzles puzzles;
+
+    private static Path resources() {
+        return Paths.get(System.getProperty("user.dir"), "src", "test", "testResources", "graded");
+    }
+
+    @BeforeEach
+    public void init() {
+        puzzles = new GradedPuzzles(new IterativeDeepeningAStar(new ManhattanWithLinearConflict()),
+                SearchLimit.NONE, 2020L);
+    }
+
+    //----3x3----
+
+    /**
+     * Unranking undoes ranking, and the oracle's boards at each depth
+     * are all that far from the goal (two at 31, none past it).
+     */
+    @Test
+    public void boardsAtTest() {
+        for (int rank = 0; rank < 362880; rank += 97) {
+            assertEquals(rank, EightPuzzleOracle.rank(EightPuzzleOracle.unrank(rank)));
+        }
+        for (TilePuzzleNode board : EightPuzzleOracle.boardsAt(24)) {
+            assertEquals(24, EightPuzzleOracle.distance(board));
+        }
+        assertEquals(1, EightPuzzleOracle.boardsAt(0).size());
+        assertEquals(2, EightPuzzleOracle.boardsAt(31).size());
+        assertTrue(EightPuzzleOracle.boardsAt(32).isEmpty());
+    }
+
+    /**
+     * 3x3 boards come from the oracle at the depth asked for, as many as
+     * there are; the same seed draws the same boards.
+     */
+    @Test
+    public void eightPuzzleTest() {
+        TreeMap<Integer, ArrayList<TilePuzzleNode>> graded = puzzles.generate(3, 0, 35, 5);
+
+        assertEquals(32, graded.size());
+        assertEquals(1, graded.get(0).size());
+        assertEquals(2, graded.get(31).size());
+        for (Map.Entry<Integer, ArrayList<TilePuzzleNode>> entry : graded.entrySet()) {
+            for (TilePuzzleNode board : entry.getValue()) {
+                assertEquals((int) entry.getKey(), EightPuzzleOracle.distance(board));
+            }
+        }
+        GradedPuzzles again = new GradedPuzzles(null, SearchLimit.NONE, 2020L);
+        assertEquals(graded, again.generate(3, 0, 35, 5));
+    }
+
+    //----4x4----
+
+    /**
+     * Random walks are kept at the depth the optimal engine finds,
+     * distinct, and as many as asked for; the goal is the only board
+     * at depth 0.
+     */
+    @Test
+    public void fifteenPuzzleTest() {
+        TreeMap<Integer, ArrayList<TilePuzzleNode>> graded = puzzles.generate(4, 0, 14, 3);
+        SearchAlgorithm check = new IterativeDeepeningAStar(new WalkingDistance());
+
+        assertEquals(15, graded.size());
+        assertEquals(1, graded.get(0).size());
+        assertEquals(2, graded.get(1).size());
+        for (int depth = 2; depth <= 14; depth++) {
+            ArrayList<TilePuzzleNode> boards = graded.get(depth);
+
+            assertEquals(3, boards.size());
+            assertEquals(3, boards.stream().distinct().count());
+            for (TilePuzzleNode board : boards) {
+                assertEquals(depth, check.solve(board).size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Depths the search limit cuts every walk off at are given up on,
+     * rather than walked for forever.
+     */
+    @Test
+    public void cutOffTest() {
+        SearchAlgorithm cutOff = new SearchAlgorithm() {
+            @Override
+            public ArrayList<TilePuzzleNode> solve(TilePuzzleNode start) {
+                throw new IllegalStateException("always cut off");
+            }
+
+            @Override
+            public SearchResult solve(TilePuzzleNode start, SearchLimit limit) {
+                return new SearchResult(SearchResult.Status.NODE_LIMIT, null, 0, null);
+            }
+        };
+        GradedPuzzles limited = new GradedPuzzles(cutOff, SearchLimit.NONE, 2020L);
+
+        assertTrue(limited.generate(4, 30, 32, 1).isEmpty());
+    }
+
+    //----files----
+
+    /**
+     * Written puzzles read back at the same depths, load as ordinary
+     * puzzle files and are filed by band.
+     */
+    @Test
+    public void writeReadTest(@TempDir Path dir) throws IOException {
+        TreeMap<Integer, ArrayList<TilePuzzleNode>> graded = puzzles.generate(3, 8, 12, 2);
+        GradedPuzzles.write(dir, graded);
+
+        Path file = dir.resolve("3x3-10-19").resolve("d12-2.txt");
+        assertEquals(12, GradedPuzzles.optimalLength(file));
+        assertEquals(graded.get(12).get(1), new TilePuzzleNode(file.toString()));
+        assertEquals(graded, GradedPuzzles.read(dir, 3));
+        assertTrue(GradedPuzzles.read(dir, 4).isEmpty());
+    }
+
+    /**
+     * The shipped instances are at the depths their files record, and
+     * plain puzzle files have none.
+     */
+    @Test
+    public void resourcesTest() throws IOException {
+        TreeMap<Integer, ArrayList<TilePuzzleNode>> eight = GradedPuzzles.read(resources(), 3);
+        assertEquals(32, eight.size());
+        for (Map.Entry<Integer, ArrayList<TilePuzzleNode>> entry : eight.entrySet()) {
+            for (TilePuzzleNode board : entry.getValue()) {
+                assertEquals((int) entry.getKey(), EightPuzzleOracle.distance(board));
+            }
+        }
+        TreeMap<Integer, ArrayList<TilePuzzleNode>> fifteen = GradedPuzzles.read(resources(), 4);
+        SearchAlgorithm ida = new IterativeDeepeningAStar(new WalkingDistance());
+        for (int depth = fifteen.firstKey(); depth <= 30; depth++) {
+            for (TilePuzzleNode board : fifteen.get(depth)) {
+                assertEquals(depth, ida.solve(board).size() - 1);
+            }
+        }
+        assertEquals(GradedPuzzles.UNKNOWN, GradedPuzzles.optimalLength(
+                resources().resolveSibling("puzzle1.txt")));
+    }
+
+    //----latency curves----
+
+    /**
+     * One point per depth, with every puzzle solved at its depth and
+     * IDA*'s expansions counted; the oracle keeps no stats.
+     */
+    @Test
+    public void latencyByDepthTest() {
+        TreeMap<Integer, ArrayList<TilePuzzleNode>> graded = puzzles.generate(3, 10, 20, 3);
+
+        ArrayList<GradedPuzzles.DepthLatency> curve = GradedPuzzles.latencyByDepth(
+                new IterativeDeepeningAStar(new ManhattanDistance()), graded, SearchLimit.NONE);
+        assertEquals(11, curve.size());
+        for (GradedPuzzles.DepthLatency point : curve) {
+            assertEquals(3, point.getPuzzles());
+            assertEquals(3, point.getSolved());
+            assertTrue(point.getMeanExpanded() > 0);
+            assertTrue(point.getMedianNanos() <= point.getMaxNanos());
+        }
+        assertEquals(10, curve.get(0).getDepth());
+
+        for (GradedPuzzles.DepthLatency point : GradedPuzzles.latencyByDepth(
+                new EightPuzzleOracle(), graded, SearchLimit.NONE)) {
+            assertEquals(3, point.getSolved());
+            assertEquals(0, point.getMeanExpanded());
+        }
+    }
+}
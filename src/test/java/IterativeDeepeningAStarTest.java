@@ -0,0 +1,185 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IterativeDeepeningAStarTest {
+
+    private IterativeDeepeningAStar ida;
+
+    @BeforeEach
+    public void init() {
+        ida = new IterativeDeepeningAStar(new ManhattanWithLinearConflict());
+    }
+
+    //----search----
+
+    /**
+     * original:
+     *           1 8 2
+     *           0 4 3
+     *           7 6 5
+     */
+    @Test
+    public void searchTest1() {
+        TilePuzzleNode start = AStarTest.load("puzzle2.txt");
+        ArrayList<TilePuzzleNode> path = ida.IterativeDeepeningSearch(start);
+
+        assertEquals(9, path.size() - 1);
+        AStarTest.assertValidPath(start, path);
+    }
+
+    /**
+     * 4x4 needing 40 moves.
+     */
+    @Test
+    public void searchTest2() {
+        TilePuzzleNode start = AStarTest.load("puzzle5.txt");
+        ArrayList<TilePuzzleNode> path = ida.IterativeDeepeningSearch(start);
+
+        assertEquals(40, path.size() - 1);
+        AStarTest.assertValidPath(start, path);
+    }
+
+    /**
+     * Start state is already the goal.
+     */
+    @Test
+    public void searchTest3() {
+        int[][] goal = {
+                {1, 2, 3},
+                {4, 5, 6},
+                {7, 8, 0}
+        };
+        ArrayList<TilePuzzleNode> path = ida.IterativeDeepeningSearch(new TilePuzzleNode(goal));
+
+        assertEquals(1, path.size());
+        assertTrue(path.get(0).isGoal());
+    }
+
+    /**
+     * 5x5 needing 38 moves.
+     */
+    @Test
+    public void searchTest4() {
+        TilePuzzleNode start = AStarTest.load("puzzle13.txt");
+        ArrayList<TilePuzzleNode> path = ida.IterativeDeepeningSearch(start);
+
+        assertEquals(38, path.size() - 1);
+        AStarTest.assertValidPath(start, path);
+    }
+
+    //----reuse----
+
+    /**
+     * One engine solves several puzzles in turn, without touching
+     * the start states it was given.
+     */
+    @Test
+    public void reuseTest() {
+        TilePuzzleNode first = AStarTest.load("puzzle2.txt");
+        TilePuzzleNode second = AStarTest.load("puzzle4.txt");
+        long packed = first.getPackedState();
+
+        assertEquals(9, ida.IterativeDeepeningSearch(first).size() - 1);
+        assertEquals(4, ida.IterativeDeepeningSearch(second).size() - 1);
+        assertEquals(packed, first.getPackedState());
+        AStarTest.assertValidPath(second, ida.IterativeDeepeningSearch(second));
+    }
+
+    //----perimeter----
+
+    /**
+     * The 3x3 board has 181,440 solvable states, none more than 31 moves
+     * from the goal, so a radius of 31 covers all of them.
+     */
+    @Test
+    public void perimeterTest1() {
+        Perimeter perimeter = new Perimeter(3, 31);
+
+        assertEquals(181440, perimeter.size());
+        assertEquals(9, perimeter.distance(AStarTest.load("puzzle2.txt").getPackedState()));
+        assertEquals(0, perimeter.distance(TilePuzzleNode.goalState(3)));
+        assertSame(Perimeter.forDimensions(4), Perimeter.forDimensions(4));
+    }
+
+    /**
+     * Ending at the perimeter finds the same optimal paths with no more
+     * expansions; boards already on it are answered from the table.
+     */
+    @Test
+    public void perimeterTest2() {
+        IterativeDeepeningAStar perimeter = IterativeDeepeningAStar.withPerimeter(
+                new ManhattanWithLinearConflict());
+        TilePuzzleNode start = AStarTest.load("puzzle5.txt");
+        ArrayList<TilePuzzleNode> path = perimeter.IterativeDeepeningSearch(start);
+        ida.IterativeDeepeningSearch(start);
+
+        assertEquals(40, path.size() - 1);
+        AStarTest.assertValidPath(start, path);
+        assertTrue(perimeter.getLastStats().getExpanded() <= ida.getLastStats().getExpanded());
+
+        TilePuzzleNode near = AStarTest.load("puzzle4.txt");
+        path = perimeter.IterativeDeepeningSearch(near);
+
+        assertEquals(4, path.size() - 1);
+        AStarTest.assertValidPath(near, path);
+        assertEquals(0, perimeter.getLastStats().getExpanded());
+    }
+
+    //----limits----
+
+    /**
+     * Out of time, the search ends with the bound of the unfinished
+     * iteration as its lower bound.
+     */
+    @Test
+    public void limitTest() {
+        SearchResult result = ida.search(AStarTest.load("puzzle1.txt"),
+                SearchLimit.NONE.withTime(Duration.ZERO), SearchListener.NONE);
+        List<SearchStats.Iteration> iterations = ida.getLastStats().getIterations();
+
+        assertEquals(SearchResult.Status.TIME_LIMIT, result.getStatus());
+        assertFalse(result.hasPath());
+        assertEquals(iterations.get(iterations.size() - 1).getBound(), result.getLowerBound());
+        assertTrue(result.getLowerBound() <= 51);
+    }
+
+    //----stats----
+
+    /**
+     * One report per iteration, with rising bounds ending at the
+     * solution length, adding up to the totals.
+     */
+    @Test
+    public void statsTest() {
+        ArrayList<SearchStats.Iteration> reported = new ArrayList<>();
+        ida.IterativeDeepeningSearch(AStarTest.load("puzzle5.txt"), new SearchListener() {
+            @Override
+            public void iterationFinished(SearchStats.Iteration iteration, SearchStats stats) {
+                reported.add(iteration);
+            }
+        });
+        SearchStats stats = ida.getLastStats();
+        List<SearchStats.Iteration> iterations = stats.getIterations();
+
+        assertEquals(40, stats.getSolutionLength());
+        assertEquals(reported, iterations);
+        assertEquals(40, iterations.get(iterations.size() - 1).getBound());
+
+        long generated = 1;
+        for (int i = 0; i < iterations.size(); i++) {
+            generated += iterations.get(i).getGenerated();
+            if (i > 0) {
+                assertTrue(iterations.get(i).getBound() > iterations.get(i - 1).getBound());
+            }
+        }
+        assertEquals(generated, stats.getGenerated());
+        assertTrue(stats.getDuplicates() > 0);
+        assertTrue(stats.getNodesPerSecond() > 0);
+    }
+}
@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyMaxHeuristicTest {
+
+    private LazyMaxHeuristic max;
+
+    @BeforeEach
+    public void init() {
+        max = new LazyMaxHeuristic(new ManhattanDistance(), new WalkingDistance(),
+                new ManhattanWithLinearConflict());
+    }
+
+    //----estimate----
+
+    /**
+     * With no limit every component is evaluated and the largest wins,
+     * along a random walk.
+     */
+    @Test
+    public void estimateTest1() {
+        Heuristic[] components = max.getComponents();
+        TilePuzzleNode node = AStarTest.load("puzzle1.txt");
+        Random rand = new Random(42);
+
+        for (int step = 0; step < 500; step++) {
+            int move = rand.nextInt(TilePuzzleNode.NUMBER_OF_MOVES);
+            TilePuzzleNode child = node.slideBlank(move);
+
+            if (child != null) {
+                int expected = 0;
+                for (Heuristic component : components) {
+                    expected = Math.max(expected, component.estimate(child));
+                }
+                assertEquals(expected, max.estimateAfterMove(0, child, move));
+                node = child;
+            }
+        }
+        assertEquals(0, max.getCutoffs(0) + max.getCutoffs(1) + max.getCutoffs(2));
+        assertEquals(max.getEvaluations(0), max.getEvaluations(2));
+    }
+
+    /**
+     * A component above the limit ends the evaluation; the components
+     * after it are never asked.
+     */
+    @Test
+    public void estimateTest2() {
+        TilePuzzleNode node = AStarTest.load("puzzle1.txt");
+        int manhattan = new ManhattanDistance().estimate(node);
+        int h = max.estimateAfterMove(0, node, TilePuzzleNode.UP, manhattan - 1);
+
+        assertEquals(manhattan, h);
+        assertEquals(1, max.getEvaluations(0));
+        assertEquals(1, max.getCutoffs(0));
+        assertEquals(0, max.getEvaluations(1));
+
+        max.resetCounters();
+        assertEquals(0, max.getEvaluations(0));
+    }
+
+    //----search----
+
+    /**
+     * IDA* finds optimal paths with it, expanding no more boards than
+     * with its strongest component alone.
+     */
+    @Test
+    public void searchTest() {
+        TilePuzzleNode start = AStarTest.load("puzzle10.txt");
+        IterativeDeepeningAStar lazy = new IterativeDeepeningAStar(max);
+        IterativeDeepeningAStar walking = new IterativeDeepeningAStar(new WalkingDistance());
+
+        assertEquals(44, lazy.IterativeDeepeningSearch(start).size() - 1);
+        assertEquals(44, walking.IterativeDeepeningSearch(start).size() - 1);
+        assertTrue(lazy.getLastStats().getExpanded() <= walking.getLastStats().getExpanded());
+        assertTrue(max.getCutoffs(0) > 0);
+    }
+}
@@ -1,6 +1,8 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ManhattanWithLinearConflictTest {
@@ -26,5 +28,127 @@ class ManhattanWithLinearConflictTest {
         int actual = mdlc.estimate(nodeOne);
         assertEquals(expected, actual);
     }
-    
-}
\ No newline at end of file
+
+    /**
+     * Blank in the top row is not a tile, so it can't be in conflict.
+     */
+    @Test
+    public void HeuristicTestTwo() {
+        int[][] dat = {
+                {1, 0, 3},
+                {4, 2, 5},
+                {7, 8, 6}
+        };
+        assertEquals(3, mdlc.estimate(new TilePuzzleNode(dat)));
+    }
+
+    /**
+     * Four tiles of a row all in conflict: three of them must leave the
+     * row, not one per pair.
+     *
+     *           4 3 2 1
+     *           5 6 7 8
+     *           9 10 11 12
+     *           13 14 15 0
+     */
+    @Test
+    public void HeuristicTestThree() {
+        int[][] dat = {
+                {4, 3, 2, 1},
+                {5, 6, 7, 8},
+                {9, 10, 11, 12},
+                {13, 14, 15, 0}
+        };
+        assertEquals(8 + 6, mdlc.estimate(new TilePuzzleNode(dat)));
+    }
+
+    /**
+     * Never above the exact distance, on 10,000 random 3x3 boards.
+     */
+    @Test
+    public void admissibleTest() {
+        Random rand = new Random(42);
+
+        for (int i = 0; i < 10000; i++) {
+            int[][] board = new int[3][3];
+            int[] tiles = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+
+            for (int j = tiles.length - 1; j > 0; j--) {
+                int k = rand.nextInt(j + 1);
+                int temp = tiles[j];
+                tiles[j] = tiles[k];
+                tiles[k] = temp;
+            }
+            for (int j = 0; j < tiles.length; j++) {
+                board[j / 3][j % 3] = tiles[j];
+            }
+            TilePuzzleNode node = new TilePuzzleNode(board);
+            int distance = EightPuzzleOracle.distance(node);
+
+            if (distance != EightPuzzleOracle.UNSOLVABLE) {
+                assertTrue(mdlc.estimate(node) <= distance);
+            }
+        }
+    }
+
+    /**
+     * Incremental estimates match full estimates along a random walk,
+     * for both Manhattan heuristics.
+     */
+    @Test
+    public void incrementalTest() {
+        InvertibleHeuristic[] heuristics = {new ManhattanDistance(), mdlc};
+        Random rand = new Random(42);
+
+        for (Heuristic heuristic : heuristics) {
+            TilePuzzleNode node = new TilePuzzleNode(System.getProperty("user.dir")
+                    + "/src/test/testResources/puzzle1.txt");
+            int h = heuristic.estimate(node);
+
+            for (int step = 0; step < 500; step++) {
+                int move = rand.nextInt(TilePuzzleNode.NUMBER_OF_MOVES);
+                TilePuzzleNode child = node.slideBlank(move);
+
+                if (child != null) {
+                    h = heuristic.estimateAfterMove(h, child, move);
+                    assertEquals(heuristic.estimate(child), h);
+                    node = child;
+                }
+            }
+        }
+    }
+
+    /**
+     * Turned towards a board, both heuristics give that board 0, give
+     * the goal the board's own estimate (moves and conflicts are
+     * symmetric) and still update incrementally.
+     */
+    @Test
+    public void towardsTest() {
+        InvertibleHeuristic[] heuristics = {new ManhattanDistance(), mdlc};
+        TilePuzzleNode target = new TilePuzzleNode(System.getProperty("user.dir")
+                + "/src/test/testResources/puzzle1.txt");
+        TilePuzzleNode goal = new TilePuzzleNode(TilePuzzleNode.goalState(4), 15, 4);
+        Random rand = new Random(42);
+
+        for (InvertibleHeuristic heuristic : heuristics) {
+            Heuristic backward = heuristic.towards(target);
+            TilePuzzleNode node = goal;
+            int h = backward.estimate(node);
+
+            assertEquals(0, backward.estimate(target));
+            assertEquals(heuristic.estimate(target), h);
+
+            for (int step = 0; step < 500; step++) {
+                int move = rand.nextInt(TilePuzzleNode.NUMBER_OF_MOVES);
+                TilePuzzleNode child = node.slideBlank(move);
+
+                if (child != null) {
+                    h = backward.estimateAfterMove(h, child, move);
+                    assertEquals(backward.estimate(child), h);
+                    node = child;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelIterativeDeepeningAStarTest {
+
+    private ForkJoinPool pool;
+    private ParallelIterativeDeepeningAStar ida;
+
+    @BeforeEach
+    public void init() {
+        pool = new ForkJoinPool(4);
+        ida = new ParallelIterativeDeepeningAStar(new ManhattanWithLinearConflict(),
+                pool, ParallelIterativeDeepeningAStar.DEFAULT_FRONTIER_SIZE);
+    }
+
+    @AfterEach
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    //----search----
+
+    /**
+     * 3x3 needing 9 moves; solved while building the frontier.
+     */
+    @Test
+    public void searchTest1() {
+        TilePuzzleNode start = AStarTest.load("puzzle2.txt");
+        ArrayList<TilePuzzleNode> path = ida.IterativeDeepeningSearch(start);
+
+        assertEquals(9, path.size() - 1);
+        AStarTest.assertValidPath(start, path);
+    }
+
+    /**
+     * 4x4 needing 40 and 44 moves; found below the frontier.
+     */
+    @Test
+    public void searchTest2() {
+        TilePuzzleNode first = AStarTest.load("puzzle5.txt");
+        TilePuzzleNode second = AStarTest.load("puzzle10.txt");
+        ArrayList<TilePuzzleNode> path = ida.IterativeDeepeningSearch(first);
+
+        assertEquals(40, path.size() - 1);
+        AStarTest.assertValidPath(first, path);
+
+        path = ida.IterativeDeepeningSearch(second);
+        assertEquals(44, path.size() - 1);
+        AStarTest.assertValidPath(second, path);
+    }
+
+    /**
+     * Start state is already the goal.
+     */
+    @Test
+    public void searchTest3() {
+        int[][] goal = {
+                {1, 2, 3},
+                {4, 5, 6},
+                {7, 8, 0}
+        };
+        ArrayList<TilePuzzleNode> path = ida.IterativeDeepeningSearch(new TilePuzzleNode(goal));
+
+        assertEquals(1, path.size());
+        assertTrue(path.get(0).isGoal());
+    }
+
+    /**
+     * Path length doesn't depend on how the search is split up.
+     */
+    @Test
+    public void frontierTest() {
+        TilePuzzleNode start = AStarTest.load("puzzle6.txt");
+
+        for (int frontierSize : new int[]{1, 50, 20000}) {
+            ParallelIterativeDeepeningAStar split = new ParallelIterativeDeepeningAStar(
+                    new ManhattanWithLinearConflict(), ForkJoinPool.commonPool(), frontierSize);
+            ArrayList<TilePuzzleNode> path = split.IterativeDeepeningSearch(start);
+
+            assertEquals(41, path.size() - 1);
+            AStarTest.assertValidPath(start, path);
+        }
+    }
+
+    //----limits----
+
+    /**
+     * A node limit reached by any worker stops them all, with the bound
+     * of the unfinished iteration as the lower bound.
+     */
+    @Test
+    public void limitTest() {
+        SearchResult result = ida.search(AStarTest.load("puzzle1.txt"),
+                SearchLimit.NONE.withMaxExpanded(100000), SearchListener.NONE);
+        SearchStats stats = ida.getLastStats();
+        List<SearchStats.Iteration> iterations = stats.getIterations();
+
+        assertEquals(SearchResult.Status.NODE_LIMIT, result.getStatus());
+        assertFalse(result.hasPath());
+        assertEquals(iterations.get(iterations.size() - 1).getBound(), result.getLowerBound());
+        assertTrue(stats.getExpanded() < 2 * 100000);
+    }
+
+    //----stats----
+
+    /**
+     * Workers' counters are summed into each iteration.
+     */
+    @Test
+    public void statsTest() {
+        ida.IterativeDeepeningSearch(AStarTest.load("puzzle5.txt"));
+        SearchStats stats = ida.getLastStats();
+        List<SearchStats.Iteration> iterations = stats.getIterations();
+
+        assertEquals(40, stats.getSolutionLength());
+        assertEquals(40, iterations.get(iterations.size() - 1).getBound());
+        assertTrue(stats.getExpanded() > ParallelIterativeDeepeningAStar.DEFAULT_FRONTIER_SIZE / 4);
+        assertTrue(stats.getGenerated() > stats.getExpanded());
+    }
+}
@@ -0,0 +1,356 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PatternDatabaseTest {
+
+    private static final int[][] EIGHT_PUZZLE_44 = {
+            {1, 2, 3, 4},
+            {5, 6, 7, 8}
+    };
+
+    private static final int[][] FIFTEEN_PUZZLE_33333 = {
+            {1, 2, 3},
+            {4, 7, 8},
+            {5, 6, 9},
+            {10, 13, 14},
+            {11, 12, 15}
+    };
+
+    private AdditivePatternDatabase eightPuzzle;
+    private AdditivePatternDatabase fifteenPuzzle;
+
+    @BeforeEach
+    public void init() {
+        eightPuzzle = new AdditivePatternDatabase(3, EIGHT_PUZZLE_44);
+        fifteenPuzzle = new AdditivePatternDatabase(4, FIFTEEN_PUZZLE_33333);
+    }
+
+    //----ranking----
+
+    /**
+     * Every rank unranks to a placement that ranks back to it.
+     */
+    @Test
+    public void rankTest1() {
+        int[] multipliers = PatternDatabase.multipliers(16, 3);
+        int[] positions = new int[3];
+
+        assertEquals(16 * 15 * 14, PatternDatabase.size(16, 3));
+
+        for (int index = 0; index < PatternDatabase.size(16, 3); index++) {
+            PatternDatabase.unrank(index, positions, multipliers, 16);
+            assertEquals(index, PatternDatabase.rank(positions, multipliers));
+        }
+    }
+
+    /**
+     * Tiles repeated across patterns are rejected.
+     */
+    @Test
+    public void rankTest2() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new AdditivePatternDatabase(3, new int[][]{{1, 2}, {2, 3}});
+        });
+    }
+
+    /**
+     * Looking up a packed board agrees with looking up its tile cells,
+     * along a random walk.
+     */
+    @Test
+    public void rankTest3() {
+        Random rand = new Random(3);
+        TilePuzzleNode node = AStarTest.load("puzzle1.txt");
+        int[] cellOf = new int[16];
+
+        for (int step = 0; step < 200; step++) {
+            node.applyMove(rand.nextInt(TilePuzzleNode.NUMBER_OF_MOVES));
+
+            for (int cell = 0; cell < 16; cell++) {
+                cellOf[TilePuzzleNode.tileAt(node.getPackedState(), cell)] = cell;
+            }
+            for (PatternDatabase database : fifteenPuzzle.getDatabases()) {
+                assertEquals(database.lookup(cellOf), database.lookup(node.getPackedState()));
+            }
+        }
+    }
+
+    //----estimate----
+
+    /**
+     * Goal state is estimated at zero.
+     */
+    @Test
+    public void estimateTest1() {
+        int[][] goal = {
+                {1, 2, 3},
+                {4, 5, 6},
+                {7, 8, 0}
+        };
+        assertEquals(0, eightPuzzle.estimate(new TilePuzzleNode(goal)));
+    }
+
+    /**
+     * Never below Manhattan distance and never above the optimal path
+     * length (puzzle2 needs 9 moves, puzzle9 needs 38).
+     */
+    @Test
+    public void estimateTest2() {
+        ManhattanDistance md = new ManhattanDistance();
+        TilePuzzleNode eight = AStarTest.load("puzzle2.txt");
+        TilePuzzleNode fifteen = AStarTest.load("puzzle9.txt");
+
+        assertTrue(eightPuzzle.estimate(eight) >= md.estimate(eight));
+        assertTrue(eightPuzzle.estimate(eight) <= 9);
+        assertTrue(fifteenPuzzle.estimate(fifteen) >= md.estimate(fifteen));
+        assertTrue(fifteenPuzzle.estimate(fifteen) <= 38);
+    }
+
+    /**
+     * Incremental estimates match full estimates along a random walk.
+     */
+    @Test
+    public void estimateTest3() {
+        Random rand = new Random(7);
+        TilePuzzleNode node = AStarTest.load("puzzle1.txt");
+        int h = fifteenPuzzle.estimate(node);
+
+        for (int step = 0; step < 500; step++) {
+            int move = rand.nextInt(TilePuzzleNode.NUMBER_OF_MOVES);
+            TilePuzzleNode child = node.slideBlank(move);
+
+            if (child != null) {
+                h = fifteenPuzzle.estimateAfterMove(h, child, move);
+                assertEquals(fifteenPuzzle.estimate(child), h);
+                node = child;
+            }
+        }
+    }
+
+    /**
+     * Searches with the databases still find optimal paths.
+     */
+    @Test
+    public void searchTest() {
+        ArrayList<TilePuzzleNode> eight = new IterativeDeepeningAStar(eightPuzzle)
+                .IterativeDeepeningSearch(AStarTest.load("puzzle2.txt"));
+        ArrayList<TilePuzzleNode> fifteen = new AStar(fifteenPuzzle).search(AStarTest.load("puzzle10.txt"));
+
+        assertEquals(9, eight.size() - 1);
+        assertEquals(44, fifteen.size() - 1);
+    }
+
+    /**
+     * Boards of the wrong size are rejected.
+     */
+    @Test
+    public void dimensionsTest() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            eightPuzzle.estimate(AStarTest.load("puzzle1.txt"));
+        });
+        assertTrue(Arrays.equals(new int[]{1, 2, 3, 4}, eightPuzzle.getDatabases()[0].getTiles()));
+    }
+
+    //----parallel build----
+
+    /**
+     * Tables built on several workers are bit-identical to a build
+     * in the calling thread.
+     */
+    @Test
+    public void parallelBuildTest1() {
+        int[] pattern = {1, 2, 5, 6};
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        PatternDatabase sequential = new PatternDatabaseBuilder(4, pattern).build();
+        PatternDatabase parallel = new PatternDatabaseBuilder(4, pattern).build(pool);
+        pool.shutdown();
+
+        assertEquals(sequential.getTable(), parallel.getTable());
+        assertTrue(Arrays.equals(sequential.getBuildReport().getLayerSizes(),
+                parallel.getBuildReport().getLayerSizes()));
+        assertEquals(4, parallel.getBuildReport().getThreads());
+    }
+
+    /**
+     * Every abstract state (placement plus blank) is expanded exactly once.
+     */
+    @Test
+    public void parallelBuildTest2() {
+        PatternDatabase database = PatternDatabase.buildParallel(3, new int[]{1, 2, 3});
+        long total = Arrays.stream(database.getBuildReport().getLayerSizes()).sum();
+
+        assertEquals(9 * 8 * 7 * 6, total);
+    }
+
+    //----5x5----
+
+    /**
+     * @return a 5x5 board after a random walk from the goal.
+     */
+    private static TilePuzzleNode walk(Random rand, int steps) {
+        int[][] goal = new int[5][5];
+        for (int i = 0; i < 25; i++) {
+            goal[i / 5][i % 5] = (i + 1) % 25;
+        }
+        TilePuzzleNode node = new TilePuzzleNode(goal);
+
+        for (int step = 0; step < steps; step++) {
+            node.applyMove(rand.nextInt(TilePuzzleNode.NUMBER_OF_MOVES));
+        }
+        return node;
+    }
+
+    /**
+     * On 5x5 boards, looking up both words of the state agrees with
+     * looking up the tile cells, and estimating the reflection agrees
+     * with building the reflected board.
+     */
+    @Test
+    public void wideTest1() {
+        Random rand = new Random(5);
+        AdditivePatternDatabase databases = new AdditivePatternDatabase(5,
+                new int[][]{{2, 8, 13}, {5, 21}});
+        PatternDatabase database = databases.getDatabases()[0];
+        TilePuzzleNode node = walk(rand, 0);
+        int[] cellOf = new int[25];
+
+        for (int step = 0; step < 200; step++) {
+            node.applyMove(rand.nextInt(TilePuzzleNode.NUMBER_OF_MOVES));
+
+            int[][] reflected = new int[5][5];
+            for (int cell = 0; cell < 25; cell++) {
+                int tile = node.getTile(cell);
+                int home = tile - 1;
+                cellOf[tile] = cell;
+                reflected[cell % 5][cell / 5] = tile == 0 ? 0 : (home % 5) * 5 + home / 5 + 1;
+            }
+
+            assertEquals(database.lookup(cellOf),
+                    database.lookup(node.getPackedState(), node.getPackedHigh()));
+            assertEquals(databases.estimate(new TilePuzzleNode(reflected)),
+                    databases.estimateReflected(node));
+        }
+    }
+
+    /**
+     * Searching over placements alone never gives more than tracking
+     * the blank as well.
+     */
+    @Test
+    public void wideTest2() {
+        int[] pattern = {1, 2, 3, 4};
+        PatternDatabase withBlank = new PatternDatabaseBuilder(3, pattern, true).build();
+        PatternDatabase withoutBlank = new PatternDatabaseBuilder(3, pattern, false).build();
+        ByteBuffer lower = withoutBlank.getTable();
+        ByteBuffer upper = withBlank.getTable();
+        boolean differs = false;
+
+        for (int i = 0; i < withBlank.size(); i++) {
+            assertTrue((lower.get(i) & 0xFF) <= (upper.get(i) & 0xFF));
+            differs |= lower.get(i) != upper.get(i);
+        }
+        assertTrue(differs);
+        assertEquals(0, withoutBlank.lookup(TilePuzzleNode.goalState(3)));
+    }
+
+    /**
+     * Additive databases work on 5x5 boards, incrementally as well, and
+     * the reflected maximum is at least either sum.
+     */
+    @Test
+    public void wideTest3() {
+        Random rand = new Random(7);
+        AdditivePatternDatabase databases = new AdditivePatternDatabase(5,
+                new int[][]{{1, 2, 6}, {19, 23, 24}});
+        ReflectedPatternDatabase reflected = new ReflectedPatternDatabase(databases);
+        TilePuzzleNode node = walk(rand, 0);
+        int h = databases.estimate(node);
+
+        assertEquals(0, h);
+        for (int step = 0; step < 200; step++) {
+            int move = rand.nextInt(TilePuzzleNode.NUMBER_OF_MOVES);
+
+            if (node.applyMove(move)) {
+                h = databases.estimateAfterMove(h, node, move);
+                assertEquals(databases.estimate(node), h);
+                assertEquals(Math.max(h, databases.estimateReflected(node)), reflected.estimate(node));
+            }
+        }
+    }
+
+    //----database files----
+
+    /**
+     * A database written to disk maps back to the same table.
+     */
+    @Test
+    public void fileTest1(@TempDir Path dir) throws IOException {
+        int[] pattern = {1, 2, 5, 6};
+        PatternDatabase built = PatternDatabase.build(4, pattern);
+        Path file = dir.resolve(PatternDatabaseFile.fileName(4, pattern));
+
+        PatternDatabaseFile.write(built, file);
+        PatternDatabase mapped = PatternDatabaseFile.read(file, 4, pattern, true);
+
+        assertEquals(built.getTable(), mapped.getTable());
+        assertNull(mapped.getBuildReport());
+    }
+
+    /**
+     * Files for another pattern, or with a damaged table, are stale.
+     */
+    @Test
+    public void fileTest2(@TempDir Path dir) throws IOException {
+        int[] pattern = {1, 2, 3};
+        Path file = dir.resolve(PatternDatabaseFile.fileName(3, pattern));
+        PatternDatabaseFile.write(PatternDatabase.build(3, pattern), file);
+
+        assertThrows(PatternDatabaseFile.StaleDatabaseException.class, () -> {
+            PatternDatabaseFile.read(file, 3, new int[]{1, 2, 4}, false);
+        });
+
+        // Flip a byte at the end of the table.
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0x7F}), channel.size() - 1);
+        }
+        assertThrows(PatternDatabaseFile.StaleDatabaseException.class, () -> {
+            PatternDatabaseFile.read(file, 3, pattern, true);
+        });
+    }
+
+    /**
+     * Missing or truncated files are rebuilt and saved.
+     */
+    @Test
+    public void fileTest3(@TempDir Path dir) throws IOException {
+        AdditivePatternDatabase first = new AdditivePatternDatabase(dir, 3, EIGHT_PUZZLE_44);
+        Path file = dir.resolve(PatternDatabaseFile.fileName(3, EIGHT_PUZZLE_44[0]));
+        assertTrue(Files.exists(file));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+        AdditivePatternDatabase second = new AdditivePatternDatabase(dir, 3, EIGHT_PUZZLE_44);
+        TilePuzzleNode node = AStarTest.load("puzzle2.txt");
+
+        assertEquals(eightPuzzle.estimate(node), first.estimate(node));
+        assertEquals(eightPuzzle.estimate(node), second.estimate(node));
+        assertNotNull(second.getDatabases()[0].getBuildReport());
+        assertNull(second.getDatabases()[1].getBuildReport());
+    }
+}
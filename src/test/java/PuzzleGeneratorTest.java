@@ -0,0 +1,130 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PuzzleGeneratorTest {
+
+    private PuzzleGenerator generator;
+
+    @BeforeEach
+    public void init() {
+        generator = new PuzzleGenerator(4, 2020L);
+    }
+
+    //----solvability----
+
+    /**
+     * Every board drawn, of every size, can reach the goal, and its
+     * packed state matches the board it unpacks to.
+     */
+    @Test
+    public void solvableTest() {
+        for (int n = 3; n <= TilePuzzleNode.MAX_DIMENSIONS; n++) {
+            PuzzleGenerator sized = new PuzzleGenerator(n, n);
+
+            for (int i = 0; i < 2000; i++) {
+                TilePuzzleNode node = sized.next();
+                int[][] board = node.getState();
+
+                assertEquals(n, node.getDimensions());
+                assertTrue(TilePuzzleNode.isSolvable(board, n));
+                assertEquals(new TilePuzzleNode(board), node);
+            }
+        }
+    }
+
+    /**
+     * The one-pass parity check agrees with TilePuzzleNode's on boards
+     * that are and aren't solvable.
+     */
+    @Test
+    public void parityTest() {
+        int[] goal = {1, 2, 3, 4, 5, 6, 7, 8, 0};
+        int[] swapped = {2, 1, 3, 4, 5, 6, 7, 8, 0};
+        int[] blankFirst = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+        assertTrue(PuzzleGenerator.isSolvable(goal, 8, 3));
+        assertFalse(PuzzleGenerator.isSolvable(swapped, 8, 3));
+        assertTrue(PuzzleGenerator.isSolvable(blankFirst, 0, 3));
+
+        int[] evenBlankRow = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 0, 15};
+        int[] oddBlankRow = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 0, 13, 14, 15, 12};
+        assertTrue(PuzzleGenerator.isSolvable(evenBlankRow, 14, 4));
+        assertTrue(PuzzleGenerator.isSolvable(oddBlankRow, 11, 4));
+    }
+
+    //----reproducibility----
+
+    /**
+     * A seed gives the same boards every time, one at a time or from a
+     * stream, sequential or parallel.
+     */
+    @Test
+    public void seedTest() {
+        List<TilePuzzleNode> drawn = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            drawn.add(generator.next());
+        }
+        PuzzleGenerator again = new PuzzleGenerator(4, 2020L);
+        List<TilePuzzleNode> sequential = again.stream(1000).collect(Collectors.toList());
+        List<TilePuzzleNode> parallel = again.stream(1000).parallel().collect(Collectors.toList());
+
+        assertEquals(drawn, sequential);
+        assertEquals(drawn, parallel);
+        assertNotEquals(drawn, new PuzzleGenerator(4, 2021L).stream(1000).collect(Collectors.toList()));
+    }
+
+    /**
+     * Consecutive boards draw from unrelated streams: no board's first
+     * draws turn up among the next board's, as they would if each
+     * board's stream were its neighbour's shifted along.
+     */
+    @Test
+    public void independentTest() {
+        for (long i = 0; i < 10000; i++) {
+            SplittableRandom board = PuzzleGenerator.random(2020L, i);
+            SplittableRandom next = PuzzleGenerator.random(2020L, i + 1);
+            long[] draws = {board.nextLong(), board.nextLong(), board.nextLong()};
+            long first = next.nextLong();
+
+            for (long draw : draws) {
+                assertNotEquals(draw, first);
+            }
+        }
+    }
+
+    //----uniformity----
+
+    /**
+     * Each of the 16 tiles (blank included) turns up in the first cell
+     * about equally often; the old nested-loop shuffle favoured some.
+     */
+    @Test
+    public void uniformTest() {
+        int draws = 160000;
+        int[] counts = new int[16];
+        generator.stream(draws).forEach(node -> counts[node.getTile(0)]++);
+
+        for (int tile = 0; tile < 16; tile++) {
+            assertEquals(draws / 16.0, counts[tile], draws / 16.0 * 0.05);
+        }
+    }
+
+    //----sizes----
+
+    /**
+     * Only 3x3 to 5x5 boards are generated.
+     */
+    @Test
+    public void dimensionsTest() {
+        assertThrows(IllegalArgumentException.class, () -> new PuzzleGenerator(2));
+        assertThrows(IllegalArgumentException.class, () -> new PuzzleGenerator(6));
+        assertEquals(3, Solver.generatePuzzle(3).getDimensions());
+        assertEquals(5, Solver.generatePuzzle(5).getDimensions());
+    }
+}
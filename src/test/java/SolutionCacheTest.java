@@ -0,0 +1,143 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolutionCacheTest {
+
+    private SolutionCache cache;
+    private IterativeDeepeningAStar ida;
+
+    /**
+     * @return the board reflected across its main diagonal, with tiles
+     * relabelled.
+     */
+    private static TilePuzzleNode transpose(TilePuzzleNode node) {
+        int n = node.getDimensions();
+        int blank = node.getBlank();
+        return new TilePuzzleNode(SolutionCache.transpose(node.getPackedState(), n),
+                (blank % n) * n + blank / n, n);
+    }
+
+    @BeforeEach
+    public void init() {
+        cache = new SolutionCache(1000);
+        ida = new IterativeDeepeningAStar(new ManhattanWithLinearConflict());
+    }
+
+    //----symmetry----
+
+    /**
+     * Transposing keeps the goal and undoes itself.
+     */
+    @Test
+    public void transposeTest1() {
+        long goal = TilePuzzleNode.goalState(4);
+        long state = AStarTest.load("puzzle1.txt").getPackedState();
+
+        assertEquals(goal, SolutionCache.transpose(goal, 4));
+        assertEquals(state, SolutionCache.transpose(SolutionCache.transpose(state, 4), 4));
+    }
+
+    /**
+     * Columns become rows, then tiles are relabelled (2 <-> 4, 3 <-> 7,
+     * 6 <-> 8).
+     *
+     * original:
+     *           1 8 2          1 0 3
+     *           0 4 3   -->    6 2 8
+     *           7 6 5          4 7 5
+     */
+    @Test
+    public void transposeTest2() {
+        int[][] expected = {
+                {1, 0, 3},
+                {6, 2, 8},
+                {4, 7, 5}
+        };
+        assertEquals(new TilePuzzleNode(expected), transpose(AStarTest.load("puzzle2.txt")));
+    }
+
+    //----lookup----
+
+    /**
+     * A cached path answers its start, every board along it and the
+     * reflections of those boards, each with an optimal path.
+     */
+    @Test
+    public void lookupTest1() {
+        TilePuzzleNode start = AStarTest.load("puzzle5.txt");
+        ArrayList<TilePuzzleNode> path = ida.IterativeDeepeningSearch(start);
+        cache.put(path);
+
+        assertEquals(40, cache.size());
+        for (int i = 1; i < path.size(); i++) {
+            TilePuzzleNode board = path.get(i);
+            ArrayList<TilePuzzleNode> cached = cache.get(board);
+            ArrayList<TilePuzzleNode> mirrored = cache.get(transpose(board));
+
+            assertEquals(i, cached.size() - 1);
+            AStarTest.assertValidPath(board, cached);
+            assertEquals(i, mirrored.size() - 1);
+            AStarTest.assertValidPath(transpose(board), mirrored);
+        }
+        assertEquals(1.0, cache.getHitRate());
+    }
+
+    /**
+     * Boards never solved are misses.
+     */
+    @Test
+    public void lookupTest2() {
+        cache.put(ida.IterativeDeepeningSearch(AStarTest.load("puzzle2.txt")));
+
+        assertNull(cache.lookup(AStarTest.load("puzzle3.txt")));
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.0, cache.getHitRate());
+    }
+
+    //----eviction----
+
+    /**
+     * Least recently used boards go first, and their share of the
+     * memory estimate with them.
+     */
+    @Test
+    public void evictionTest() {
+        SolutionCache small = new SolutionCache(8);
+        TilePuzzleNode eightMoves = AStarTest.load("puzzle3.txt");
+        ArrayList<TilePuzzleNode> nineMoves = ida.IterativeDeepeningSearch(AStarTest.load("puzzle2.txt"));
+
+        SolutionCache fresh = new SolutionCache(8);
+        small.put(ida.IterativeDeepeningSearch(eightMoves));
+        small.put(nineMoves);
+        fresh.put(nineMoves);
+
+        // Nine boards went in, so the first of them (the start) is gone
+        // along with all of the earlier path.
+        assertEquals(8, small.size());
+        assertNull(small.get(eightMoves));
+        assertNull(small.get(nineMoves.get(9)));
+        assertNotNull(small.get(nineMoves.get(8)));
+        assertEquals(fresh.memoryBytes(), small.memoryBytes());
+    }
+
+    //----caching solver----
+
+    /**
+     * The second solve of a board, or of its reflection, comes from
+     * the cache.
+     */
+    @Test
+    public void cachingSolverTest() {
+        CachingSolver solver = new CachingSolver(ida, cache);
+        TilePuzzleNode start = AStarTest.load("puzzle10.txt");
+
+        assertEquals(44, solver.solve(start).size() - 1);
+        assertEquals(44, solver.solve(transpose(start)).size() - 1);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+}
@@ -452,4 +452,119 @@ class TilePuzzleNodeTest {
         TilePuzzleNode two = new TilePuzzleNode(stateTwo);
         assertTrue(one.equals(two));
     }
-}
\ No newline at end of file
+
+    //----packed state----
+
+    /**
+     * Goal board packs to the same value as goalState.
+     */
+    @Test
+    public void packedStateTest1() {
+        int[][] goal = {
+                {1, 2, 3},
+                {4, 5, 6},
+                {7, 8, 0}
+        };
+        TilePuzzleNode node = new TilePuzzleNode(goal);
+
+        assertEquals(TilePuzzleNode.goalState(3), node.getPackedState());
+        assertTrue(node.isGoal());
+    }
+
+    /**
+     * Sliding the blank and sliding it back gives the original state.
+     */
+    @Test
+    public void packedStateTest2() {
+        TilePuzzleNode node = new TilePuzzleNode(fourByFour);
+        TilePuzzleNode moved = node.slideBlank(TilePuzzleNode.RIGHT).slideBlank(TilePuzzleNode.LEFT);
+
+        assertEquals(node, moved);
+        assertEquals(node.hashCode(), moved.hashCode());
+        assertEquals(5, moved.getBlank());
+    }
+
+    /**
+     * swapBlank mutates the packed state and the 2d view.
+     */
+    @Test
+    public void packedStateTest3() {
+        TilePuzzleNode node = new TilePuzzleNode(threeByThree);
+        node.getState();
+        node.swapBlank(1, 0, 0, 0);
+
+        assertEquals(0, node.getTile(0, 0));
+        assertEquals(1, node.getState()[1][0]);
+        assertTrue(Arrays.equals(new int[]{0, 0}, node.getBlankIndexes()));
+    }
+
+    /**
+     * Boards larger than 5x5 do not fit in the packed state.
+     */
+    @Test
+    public void packedStateTest4() {
+        int[][] sixBySix = new int[6][6];
+        for (int i = 0; i < 36; i++) {
+            sixBySix[i / 6][i % 6] = (i + 1) % 36;
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            new TilePuzzleNode(sixBySix);
+        });
+    }
+
+    /**
+     * applyMove moves the blank in place, refuses moves off the board
+     * and is undone by the inverse move.
+     */
+    @Test
+    public void packedStateTest5() {
+        TilePuzzleNode node = new TilePuzzleNode(fourByFour);
+        TilePuzzleNode copy = new TilePuzzleNode(fourByFour);
+        node.getState();
+
+        assertTrue(node.applyMove(TilePuzzleNode.UP));
+        assertEquals(copy.slideBlank(TilePuzzleNode.UP), node);
+        assertEquals(0, node.getState()[0][1]);
+        assertFalse(node.applyMove(TilePuzzleNode.UP));
+        assertTrue(node.applyMove(TilePuzzleNode.DOWN));
+        assertEquals(copy, node);
+    }
+
+    /**
+     * 5x5 boards spread over both words; every tile (including the one
+     * straddling them) reads back, moves and undoes, and equality takes
+     * in the high word.
+     */
+    @Test
+    public void packedStateTest6() {
+        int[][] fiveByFive = {
+                {24, 23, 22, 21, 20},
+                {19, 18, 17, 16, 15},
+                {14, 13, 0, 11, 10},
+                {9, 8, 7, 6, 5},
+                {4, 3, 2, 1, 12}
+        };
+        TilePuzzleNode node = new TilePuzzleNode(fiveByFive);
+        TilePuzzleNode copy = new TilePuzzleNode(fiveByFive);
+
+        assertTrue(Arrays.deepEquals(fiveByFive, node.getState()));
+        assertEquals(12, node.getBlank());
+        assertTrue(node.applyMove(TilePuzzleNode.DOWN));
+        assertEquals(7, node.getTile(12));
+        assertNotEquals(copy.getPackedHigh(), node.getPackedHigh());
+        assertTrue(node.applyMove(TilePuzzleNode.RIGHT));
+        assertNotEquals(copy, node);
+        assertTrue(node.applyMove(TilePuzzleNode.LEFT));
+        assertTrue(node.applyMove(TilePuzzleNode.UP));
+        assertEquals(copy, node);
+        assertEquals(copy.hashCode(), node.hashCode());
+
+        int[][] goal = new int[5][5];
+        for (int i = 0; i < 25; i++) {
+            goal[i / 5][i % 5] = (i + 1) % 25;
+        }
+        assertTrue(new TilePuzzleNode(goal).isGoal());
+        assertFalse(node.isGoal());
+    }
+}
@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalkingDistanceTest {
+
+    private WalkingDistance wd;
+
+    @BeforeEach
+    public void init() {
+        wd = new WalkingDistance();
+    }
+
+    //----table----
+
+    /**
+     * 24,964 row matrices are reachable from the goal's.
+     */
+    @Test
+    public void patternsTest() {
+        assertEquals(24964, WalkingDistance.patterns());
+    }
+
+    //----estimate----
+
+    /**
+     * The goal is 0 and a board one move away is 1.
+     */
+    @Test
+    public void estimateTest1() {
+        TilePuzzleNode goal = new TilePuzzleNode(TilePuzzleNode.goalState(4), 15, 4);
+
+        assertEquals(0, wd.estimate(goal));
+        assertEquals(1, wd.estimate(goal.slideBlank(TilePuzzleNode.UP)));
+        assertEquals(1, wd.estimate(goal.slideBlank(TilePuzzleNode.LEFT)));
+    }
+
+    /**
+     * The top row reversed (30 moves): Manhattan distance counts eight,
+     * walking distance knows the tiles must pass each other.
+     *
+     *           4 3 2 1
+     *           5 6 7 8
+     *           9 10 11 12
+     *           13 14 15 0
+     */
+    @Test
+    public void estimateTest2() {
+        int[][] board = {
+                {4, 3, 2, 1},
+                {5, 6, 7, 8},
+                {9, 10, 11, 12},
+                {13, 14, 15, 0}
+        };
+        TilePuzzleNode node = new TilePuzzleNode(board);
+
+        assertEquals(8, new ManhattanDistance().estimate(node));
+        assertEquals(14, wd.estimate(node));
+    }
+
+    /**
+     * Never below Manhattan distance, and incremental estimates match
+     * full estimates along a random walk.
+     */
+    @Test
+    public void incrementalTest() {
+        ManhattanDistance manhattan = new ManhattanDistance();
+        TilePuzzleNode node = AStarTest.load("puzzle1.txt");
+        int h = wd.estimate(node);
+        Random rand = new Random(42);
+
+        for (int step = 0; step < 2000; step++) {
+            int move = rand.nextInt(TilePuzzleNode.NUMBER_OF_MOVES);
+            TilePuzzleNode child = node.slideBlank(move);
+
+            if (child != null) {
+                h = wd.estimateAfterMove(h, child, move);
+                assertEquals(wd.estimate(child), h);
+                assertTrue(h >= manhattan.estimate(child));
+                node = child;
+            }
+        }
+    }
+
+    /**
+     * Only 4x4 boards have a table.
+     */
+    @Test
+    public void estimateTest3() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            wd.estimate(AStarTest.load("puzzle2.txt"));
+        });
+    }
+
+    //----search----
+
+    /**
+     * Both engines find optimal paths with it, expanding fewer boards
+     * than with linear conflict.
+     */
+    @Test
+    public void searchTest() {
+        TilePuzzleNode start = AStarTest.load("puzzle10.txt");
+        AStar aStar = new AStar(wd);
+        AStar linear = new AStar(new ManhattanWithLinearConflict());
+        IterativeDeepeningAStar ida = new IterativeDeepeningAStar(wd);
+
+        assertEquals(44, aStar.search(start).size() - 1);
+        assertEquals(44, linear.search(start).size() - 1);
+        assertEquals(44, ida.IterativeDeepeningSearch(start).size() - 1);
+        assertTrue(aStar.getLastStats().getExpanded() < linear.getLastStats().getExpanded());
+    }
+}